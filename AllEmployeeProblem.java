@@ -8,6 +8,12 @@ class Employee{
     private int age;
     private double salary;
     private String department;
+    // Optional observer (DepartmentAggregates) told before each age, salary or
+    // department change with the new values; it can reject the change by throwing
+    interface ChangeListener{
+        void changing(Employee e,int age,double salary,String department);
+    }
+    private ChangeListener listener;
     public Employee(String name,int age,double salary,String department){
         this.name=name;
         this.age=age;
@@ -19,9 +25,20 @@ class Employee{
     public double getSalary(){return salary;   }
     public String getDepartment(){return department;    }
     public void setName(String name){this.name=name;}
-    public void setAge(int age){this.age=age;}
-    public void setSalary(double salary){this.salary=salary;}
-    public void setDepartment(String department){this.department=department;}
+    public void setAge(int age){
+        if(listener!=null) listener.changing(this,age,salary,department);
+        this.age=age;
+    }
+    public void setSalary(double salary){
+        if(listener!=null) listener.changing(this,age,salary,department);
+        this.salary=salary;
+    }
+    public void setDepartment(String department){
+        if(listener!=null) listener.changing(this,age,salary,department);
+        this.department=department;
+    }
+    ChangeListener getChangeListener(){return listener;}
+    void setChangeListener(ChangeListener listener){this.listener=listener;}
     @Override
     public String toString(){
         return name +  "( "+age+ " ," +salary + " , "+department+ ")";
@@ -153,11 +170,9 @@ public class AllEmployeeProblem {
 
         // Problem 13: Count employees in each department
         System.out.println("\n13. Employee Count by Department:");
-        Map<String,Long> countEmpEachDept=empList.stream()
-        .collect(Collectors.groupingBy(Employee::getDepartment,
-         Collectors.counting()
-
-        ));
+        // Read from aggregates kept up to date on every change, not regrouped
+        DepartmentAggregates deptAggregates=DepartmentAggregates.of(empList);
+        Map<String,Long> countEmpEachDept=deptAggregates.counts();
         countEmpEachDept.forEach((dept,count)->System.out.println(dept+"  "+count+" Employees"));
 
     }
@@ -36,6 +36,7 @@ public class AllPersonProblems {
             new Person("Sarah", 32, 45000, "HR"),
             new Person("David", 27, 90000, "Finance")
         );
+        PersonTable table = PersonTable.fromPersons(persons);
         
         System.out.println("===== JAVA 8 STREAM PROBLEMS SOLUTIONS =====\n");
         
@@ -55,10 +56,7 @@ public class AllPersonProblems {
         
         // Problem 3: Get average salary of all employees
         System.out.println("\n3. Average Salary:");
-        double averageSalary = persons.stream()
-            .mapToDouble(Person::getSalary)
-            .average()
-            .orElse(0.0);
+        double averageSalary = table.averageSalary();
         System.out.println("  Average: " + String.format("%.2f", averageSalary));
         
         // Problem 4: Find employee with maximum salary
@@ -78,18 +76,14 @@ public class AllPersonProblems {
         
         // Problem 6: Get total salary by department
         System.out.println("\n6. Total Salary by Department:");
-        Map<String, Double> totalSalaryByDept = persons.stream()
-            .collect(Collectors.groupingBy(
-                Person::getDepartment,
-                Collectors.summingDouble(Person::getSalary)
-            ));
+        Map<String, Double> totalSalaryByDept = table.totalSalaryByDepartment();
         totalSalaryByDept.forEach((dept, total) -> 
             System.out.println("  " + dept + ": " + total));
         
         // Problem 7: Find employees older than 30
         System.out.println("\n7. Employees Older than 30:");
-        List<Person> olderThan30 = persons.stream()
-            .filter(p -> p.getAge() > 30)
+        List<Person> olderThan30 = Arrays.stream(table.ageIndex().greaterThan(30).rowsInOrder())
+            .mapToObj(persons::get)
             .collect(Collectors.toList());
         olderThan30.forEach(p -> System.out.println("  - " + p.getName() + " (" + p.getAge() + ")"));
         
@@ -151,22 +145,18 @@ public class AllPersonProblems {
         
         // Problem 15: Get second highest salary
         System.out.println("\n15. Second Highest Salary:");
-        persons.stream()
-            .map(Person::getSalary)
-            .distinct()
-            .sorted(Comparator.reverseOrder())
-            .skip(1)
-            .findFirst()
+        table.kthHighestDistinctSalary(2)
             .ifPresent(salary -> System.out.println("  " + salary));
         
         // Problem 16: Partition employees by age (above/below 30)
         System.out.println("\n16. Partition employees by age (above/below 30):");
-        Map<Boolean, List<Person>> partitionedByAge = persons.stream()
-            .collect(Collectors.partitioningBy(p -> p.getAge() >= 30));
+        // Age decade bitmaps: 30+ is an OR of decades, below 30 is the complement
+        RoaringBitmap age30Plus = table.ageGroupBitmaps().matching(decade -> decade >= 30);
+        RoaringBitmap below30 = table.allRows().andNot(age30Plus);
         System.out.println("  Employees 30+:");
-        partitionedByAge.get(true).forEach(p -> System.out.println("    - " + p.getName()));
+        age30Plus.forEach(row -> System.out.println("    - " + persons.get(row).getName()));
         System.out.println("  Employees below 30:");
-        partitionedByAge.get(false).forEach(p -> System.out.println("    - " + p.getName()));
+        below30.forEach(row -> System.out.println("    - " + persons.get(row).getName()));
         
         // Problem 17: Get concatenated names of all employees
         System.out.println("\n17. Concatenated names of all employees:");
@@ -183,9 +173,7 @@ public class AllPersonProblems {
         
         // Problem 19: Get salary statistics using summary statistics
         System.out.println("\n19. Salary Statistics:");
-        DoubleSummaryStatistics salaryStats = persons.stream()
-            .mapToDouble(Person::getSalary)
-            .summaryStatistics();
+        DoubleSummaryStatistics salaryStats = table.salaryStatistics();
         System.out.println("  Count: " + salaryStats.getCount());
         System.out.println("  Min: " + salaryStats.getMin());
         System.out.println("  Max: " + salaryStats.getMax());
@@ -194,8 +182,8 @@ public class AllPersonProblems {
         
         // Problem 20: Get employees with salary between 50000 and 70000
         System.out.println("\n20. Employees with salary between 50000 and 70000:");
-        persons.stream()
-            .filter(p -> p.getSalary() >= 50000 && p.getSalary() <= 70000)
+        Arrays.stream(table.salaryIndex().between(50000, 70000).rowsInOrder())
+            .mapToObj(persons::get)
             .forEach(p -> System.out.println("  - " + p.getName() + ": " + p.getSalary()));
         
         // Problem 21: Group employee names by department
@@ -210,9 +198,7 @@ public class AllPersonProblems {
         
         // Problem 22: Get total salary expenditure
         System.out.println("\n22. Total salary expenditure:");
-        double totalSalary = persons.stream()
-            .mapToDouble(Person::getSalary)
-            .sum();
+        double totalSalary = table.totalSalary();
         System.out.println("  Total: " + totalSalary);
         
         // Problem 23: Find if any employee earns more than 80000
@@ -289,15 +275,16 @@ public class AllPersonProblems {
         // Problem 30: Calculate salary increment by 10% for all
         System.out.println("\n30. Calculate 10% salary increment:");
         System.out.println("  Salaries after 10% increment:");
-        persons.forEach(p -> {
-            double newSalary = p.getSalary() * 1.10;
-            System.out.println("  " + p.getName() + ": " + p.getSalary() + " → " + 
-                String.format("%.2f", newSalary));
-        });
-        double totalAfterIncrement = persons.stream()
-            .mapToDouble(p -> p.getSalary() * 1.10)
-            .sum();
-        System.out.println("  Total after increment: " + String.format("%.2f", totalAfterIncrement));
+        // Exact cents from one PayrollEngine pass instead of salary * 1.10 per row
+        PayrollEngine.Result raised = PayrollEngine.builder().incrementBps(1000).build()
+            .run(PayrollEngine.toCents(table.salaries()));
+        try (ReportSink out = ReportSink.stdout()) {
+            for (int row = 0; row < table.size(); row++) {
+                out.append("  ").append(table.getName(row)).append(": ").append(table.getSalary(row))
+                    .append(" → ").appendCents(raised.gross()[row]).newline();
+            }
+            out.append("  Total after increment: ").appendCents(raised.totalGross()).newline();
+        }
         
         // Problem 31: Find employees whose name starts with 'J'
         System.out.println("\n31. Employees whose name starts with 'J':");
@@ -319,9 +306,7 @@ public class AllPersonProblems {
         // Problem 33: Get top 3 highest paid employees
         System.out.println("\n33. Top 3 highest paid employees:");
         List<Person> top3Earners = persons.stream()
-            .sorted(Comparator.comparingDouble(Person::getSalary).reversed())
-            .limit(3)
-            .collect(Collectors.toList());
+            .collect(TopK.largest(3, Person::getSalary));
         for (int i = 0; i < top3Earners.size(); i++) {
             Person p = top3Earners.get(i);
             System.out.println("  " + (i + 1) + ". " + p.getName() + " - " + p.getSalary());
@@ -329,11 +314,7 @@ public class AllPersonProblems {
         
         // Problem 34: Calculate average salary of employees aged above 30
         System.out.println("\n34. Average salary of employees aged above 30:");
-        double avgSalaryAbove30 = persons.stream()
-            .filter(p -> p.getAge() > 30)
-            .mapToDouble(Person::getSalary)
-            .average()
-            .orElse(0.0);
+        double avgSalaryAbove30 = table.ageIndex().greaterThan(30).average();
         System.out.println("  Average: " + String.format("%.2f", avgSalaryAbove30));
         
         // Problem 35: Check if all department names are uppercase
@@ -372,13 +353,12 @@ public class AllPersonProblems {
         
         // Problem 39: Find if there's a duplicate department
         System.out.println("\n39. Check for duplicate departments:");
+        // One pass and exact: a yes/no answer cannot come from an estimate
         long distinctDeptCount = persons.stream()
             .map(Person::getDepartment)
-            .distinct()
-            .count();
-        long totalDeptCount = persons.stream()
-            .map(Person::getDepartment)
-            .count();
+            .collect(Collectors.toSet())
+            .size();
+        long totalDeptCount = persons.size();
         boolean hasDuplicates = totalDeptCount > distinctDeptCount;
         System.out.println("  Has duplicate departments: " + hasDuplicates);
         
@@ -0,0 +1,20 @@
+import java.util.*;
+
+// Deterministic synthetic employee data for the benchmarks.
+public class BenchmarkData {
+
+    // Department "Dept0" is the one filter benchmarks select on
+    public static List<Person> generate(int rows, int departments, long seed) {
+        Random random = new Random(seed);
+        List<Person> persons = new ArrayList<>(rows);
+        int distinctNames = Math.max(rows / 4, 1);
+        for (int i = 0; i < rows; i++) {
+            persons.add(new Person(
+                "Name" + random.nextInt(distinctNames),
+                20 + random.nextInt(46),
+                30000 + random.nextInt(90000),
+                "Dept" + random.nextInt(departments)));
+        }
+        return persons;
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.*;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+// Minimal JMH-style harness: timed warmup iterations, then timed measurement
+// iterations, each running the task repeatedly for a fixed time budget.
+// Every result goes to a volatile sink so the work cannot be eliminated.
+public class BenchmarkRunner {
+    private static volatile Object objectSink;
+    private static volatile double doubleSink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    public static BenchmarkRunner defaults() {
+        return new BenchmarkRunner(5, 5, 500);
+    }
+
+    public Result run(String name, Supplier<?> task) {
+        return run(name, () -> {
+            objectSink = task.get();
+            return 0;
+        });
+    }
+
+    public Result run(String name, DoubleSupplier task) {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(task);
+        }
+        double[] samples = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            samples[i] = iteration(task);
+        }
+        return new Result(name, samples);
+    }
+
+    // Returns nanoseconds per operation for one iteration
+    private double iteration(DoubleSupplier task) {
+        double acc = 0;
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            acc += task.getAsDouble();
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        doubleSink = acc;
+        return (double) elapsed / ops;
+    }
+
+    public static class Result {
+        private final String name;
+        private final double mean;
+        private final double error;
+        private final double min;
+
+        Result(String name, double[] samples) {
+            this.name = name;
+            double sum = 0;
+            double best = Double.MAX_VALUE;
+            for (double s : samples) {
+                sum += s;
+                best = Math.min(best, s);
+            }
+            this.mean = sum / samples.length;
+            double squares = 0;
+            for (double s : samples) {
+                squares += (s - mean) * (s - mean);
+            }
+            // Half-width of a ~99% interval, like JMH's score error
+            this.error = samples.length > 1
+                ? 2.576 * Math.sqrt(squares / (samples.length - 1)) / Math.sqrt(samples.length)
+                : 0;
+            this.min = best;
+        }
+
+        public String getName() { return name; }
+        public double getMeanNanos() { return mean; }
+        public double getErrorNanos() { return error; }
+        public double getMinNanos() { return min; }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %16.1f +- %12.1f ns/op", name, mean, error);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+// One RoaringBitmap of row ids per distinct key of a column (or of a value
+// derived from it, like an age decade). Suited to low-cardinality keys:
+// a predicate on the key becomes an OR of a few bitmaps, and several
+// predicates combine with and/or/andNot instead of re-testing every row.
+// Keys keep the order in which they first appear.
+public class BitmapIndex<K> {
+    private final int rows;
+    private final Map<K, RoaringBitmap> bitmaps;
+
+    private BitmapIndex(int rows, Map<K, RoaringBitmap> bitmaps) {
+        this.rows = rows;
+        this.bitmaps = bitmaps;
+    }
+
+    // key.apply(row) for every row in [0, rows)
+    public static <K> BitmapIndex<K> build(int rows, IntFunction<? extends K> key) {
+        Map<K, RoaringBitmap> bitmaps = new LinkedHashMap<>();
+        for (int row = 0; row < rows; row++) {
+            bitmaps.computeIfAbsent(key.apply(row), k -> new RoaringBitmap()).add(row);
+        }
+        return new BitmapIndex<>(rows, bitmaps);
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public Set<K> keys() {
+        return Collections.unmodifiableSet(bitmaps.keySet());
+    }
+
+    // Rows with this key (a copy, so it may be modified); empty for an unknown key
+    public RoaringBitmap get(K key) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        return bitmap != null ? bitmap.copy() : new RoaringBitmap();
+    }
+
+    public long count(K key) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        return bitmap != null ? bitmap.cardinality() : 0;
+    }
+
+    // Rows whose key matches, e.g. matching(decade -> decade >= 30)
+    public RoaringBitmap matching(Predicate<? super K> predicate) {
+        List<RoaringBitmap> selected = new ArrayList<>();
+        bitmaps.forEach((key, bitmap) -> {
+            if (predicate.test(key)) {
+                selected.add(bitmap);
+            }
+        });
+        return RoaringBitmap.or(selected);
+    }
+
+    // Range predicate over binned keys (age decades, salary brackets): bins
+    // the range covers entirely are ORed in whole, and only the rows of bins
+    // it partly overlaps are tested with row, e.g. for salary > 50000 over
+    // 20000 brackets only the 40000 bracket's rows are checked
+    public RoaringBitmap matching(Predicate<? super K> covered, Predicate<? super K> overlapping, IntPredicate row) {
+        List<RoaringBitmap> selected = new ArrayList<>();
+        bitmaps.forEach((key, bitmap) -> {
+            if (covered.test(key)) {
+                selected.add(bitmap);
+            } else if (overlapping.test(key)) {
+                RoaringBitmap edge = new RoaringBitmap();
+                bitmap.forEach(r -> {
+                    if (row.test(r)) {
+                        edge.add(r);
+                    }
+                });
+                selected.add(edge);
+            }
+        });
+        return RoaringBitmap.or(selected);
+    }
+
+    // Each key's rows within a filter, skipping keys with none (Problem 66)
+    public Map<K, RoaringBitmap> within(RoaringBitmap filter) {
+        Map<K, RoaringBitmap> result = new LinkedHashMap<>();
+        bitmaps.forEach((key, bitmap) -> {
+            RoaringBitmap rows = bitmap.and(filter);
+            if (!rows.isEmpty()) {
+                result.put(key, rows);
+            }
+        });
+        return result;
+    }
+
+    // Rows per key within a filter, computed by popcount
+    public Map<K, Long> countWithin(RoaringBitmap filter) {
+        Map<K, Long> counts = new LinkedHashMap<>();
+        bitmaps.forEach((key, bitmap) -> counts.put(key, bitmap.andCardinality(filter)));
+        return counts;
+    }
+
+    public long memoryBytes() {
+        long total = 0;
+        for (RoaringBitmap bitmap : bitmaps.values()) {
+            total += bitmap.memoryBytes();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.*;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+// Problem 98: complete business analysis report
+public class BusinessReport {
+
+    // Same report as multiPass, computed in one scan. Safe for parallel streams:
+    // each split fills its own Accumulator and the splits are merged.
+    public static Map<String, Object> singlePass(Collection<Person> persons) {
+        return persons.stream().collect(collector());
+    }
+
+    public static Collector<Person, ?, Map<String, Object>> collector() {
+        return Collector.of(
+            Accumulator::new,
+            Accumulator::accept,
+            Accumulator::combine,
+            Accumulator::toReport);
+    }
+
+    static class Accumulator {
+        private int count;
+        private final DoubleSummaryStatistics salary = new DoubleSummaryStatistics();
+        private long ageSum;
+        private final Map<String, DoubleSummaryStatistics> departments = new HashMap<>();
+        private long young;
+        private long middle;
+        private long senior;
+        private final List<String> highEarners = new ArrayList<>();
+
+        void accept(Person p) {
+            count++;
+            salary.accept(p.getSalary());
+            ageSum += p.getAge();
+            departments.computeIfAbsent(
+                Objects.requireNonNull(p.getDepartment(), "element cannot be mapped to a null key"),
+                d -> new DoubleSummaryStatistics()).accept(p.getSalary());
+            if (p.getAge() < 30) young++;
+            else if (p.getAge() < 40) middle++;
+            else senior++;
+            if (p.getSalary() > 70000) {
+                highEarners.add(p.getName());
+            }
+        }
+
+        Accumulator combine(Accumulator other) {
+            count += other.count;
+            salary.combine(other.salary);
+            ageSum += other.ageSum;
+            other.departments.forEach((dept, stats) ->
+                departments.computeIfAbsent(dept, d -> new DoubleSummaryStatistics()).combine(stats));
+            young += other.young;
+            middle += other.middle;
+            senior += other.senior;
+            highEarners.addAll(other.highEarners);
+            return this;
+        }
+
+        // Same keys, value types and map types as multiPass
+        Map<String, Object> toReport() {
+            Map<String, Long> deptCount = new HashMap<>();
+            Map<String, Double> deptAvgSalary = new HashMap<>();
+            departments.forEach((dept, stats) -> {
+                deptCount.put(dept, stats.getCount());
+                deptAvgSalary.put(dept, stats.getAverage());
+            });
+            Map<String, Long> ageGroups = new HashMap<>();
+            if (young > 0) ageGroups.put("Young", young);
+            if (middle > 0) ageGroups.put("Middle", middle);
+            if (senior > 0) ageGroups.put("Senior", senior);
+
+            Map<String, Object> report = new HashMap<>();
+            report.put("totalEmployees", count);
+            report.put("totalSalary", salary.getSum());
+            report.put("averageAge", count == 0 ? 0.0 : (double) ageSum / count);
+            report.put("departmentDistribution", deptCount);
+            report.put("departmentAvgSalary", deptAvgSalary);
+            report.put("ageGroups", ageGroups);
+            report.put("highEarners", highEarners);
+            return report;
+        }
+    }
+
+    public static Map<String, Object> multiPass(List<Person> persons) {
+        return persons.stream()
+            .collect(Collectors.collectingAndThen(
+                Collectors.toList(),
+                list -> {
+                    Map<String, Object> report = new HashMap<>();
+
+                    // Basic stats
+                    report.put("totalEmployees", list.size());
+                    report.put("totalSalary", list.stream().mapToDouble(Person::getSalary).sum());
+                    report.put("averageAge", list.stream().mapToInt(Person::getAge).average().orElse(0));
+
+                    // Department analysis
+                    Map<String, Long> deptCount = list.stream()
+                        .collect(Collectors.groupingBy(Person::getDepartment, Collectors.counting()));
+                    report.put("departmentDistribution", deptCount);
+
+                    // Salary analysis
+                    Map<String, Double> deptAvgSalary = list.stream()
+                        .collect(Collectors.groupingBy(
+                            Person::getDepartment,
+                            Collectors.averagingDouble(Person::getSalary)
+                        ));
+                    report.put("departmentAvgSalary", deptAvgSalary);
+
+                    // Age groups
+                    Map<String, Long> ageGroups = list.stream()
+                        .collect(Collectors.groupingBy(
+                            p -> p.getAge() < 30 ? "Young" : p.getAge() < 40 ? "Middle" : "Senior",
+                            Collectors.counting()
+                        ));
+                    report.put("ageGroups", ageGroups);
+
+                    // High earners
+                    List<String> highEarners = list.stream()
+                        .filter(p -> p.getSalary() > 70000)
+                        .map(Person::getName)
+                        .collect(Collectors.toList());
+                    report.put("highEarners", highEarners);
+
+                    return report;
+                }
+            ));
+    }
+}
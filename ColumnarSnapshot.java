@@ -0,0 +1,463 @@
+import java.io.IOException;
+import java.lang.foreign.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+
+// Binary columnar snapshot of a PersonTable, read back through
+// FileChannel.map: opening maps the file and checks the header, and values
+// are read straight from the mapping when asked for, so a 10 GB snapshot
+// opens in milliseconds and only the pages a query touches are loaded.
+// Mapping to a MemorySegment (preview in JDK 21, --enable-preview) lifts
+// the 2 GB limit of MappedByteBuffer and lets close() unmap right away.
+//
+// File layout, little endian, every section 8-byte aligned:
+//   header        magic, version, counts and section offsets (HEADER_SIZE bytes)
+//   salary        double per row
+//   age           int per row
+//   nameCode      int per row, into the name dictionary
+//   departmentCode int per row, into the department dictionary
+//   zone maps     per block of BLOCK_ROWS rows: min/max age, min/max salary
+//                 and a 64-bit mask of the department codes (code % 64) present
+//   dictionaries  (offset, length) entry per code, then the UTF-8 bytes;
+//                 length -1 stands for null
+//
+// Range filters check a block's zone map first: blocks outside the range are
+// skipped without reading their rows, and blocks entirely inside it are
+// counted without reading them either.
+public class ColumnarSnapshot implements AutoCloseable {
+    public static final int BLOCK_ROWS = 64 * 1024;
+
+    private static final int MAGIC = 0x50534E31; // "PSN1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 96;
+    private static final int ZONE_SIZE = 32;
+    private static final int ENTRY_SIZE = 16;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment file;
+    private final long size;
+    private final int blockRows;
+    private final int blockCount;
+    private final int nameCount;
+    private final int departmentCount;
+    private final long salaryOffset;
+    private final long ageOffset;
+    private final long nameCodeOffset;
+    private final long departmentCodeOffset;
+    private final long zoneOffset;
+    private final long nameOffset;
+    private final long departmentOffset;
+
+    private ColumnarSnapshot(Arena arena, MemorySegment file) {
+        this.arena = arena;
+        this.file = file;
+        if (file.byteSize() < HEADER_SIZE || file.get(INT, 0) != MAGIC) {
+            throw new IllegalArgumentException("Not a columnar snapshot");
+        }
+        if (file.get(INT, 4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version " + file.get(INT, 4));
+        }
+        this.size = file.get(LONG, 8);
+        this.blockRows = file.get(INT, 16);
+        this.blockCount = file.get(INT, 20);
+        this.nameCount = file.get(INT, 24);
+        this.departmentCount = file.get(INT, 28);
+        this.salaryOffset = file.get(LONG, 32);
+        this.ageOffset = file.get(LONG, 40);
+        this.nameCodeOffset = file.get(LONG, 48);
+        this.departmentCodeOffset = file.get(LONG, 56);
+        this.zoneOffset = file.get(LONG, 64);
+        this.nameOffset = file.get(LONG, 72);
+        this.departmentOffset = file.get(LONG, 80);
+        // Every count and section has to fit the file, so a truncated or
+        // foreign file fails here rather than on some later query
+        if (size < 0 || blockRows <= 0 || blockCount != (size + blockRows - 1) / blockRows) {
+            throw new IllegalArgumentException("Not a columnar snapshot");
+        }
+        checkSection(file, salaryOffset, size, 8);
+        checkSection(file, ageOffset, size, 4);
+        checkSection(file, nameCodeOffset, size, 4);
+        checkSection(file, departmentCodeOffset, size, 4);
+        checkSection(file, zoneOffset, blockCount, ZONE_SIZE);
+        checkSection(file, nameOffset, nameCount, ENTRY_SIZE);
+        checkSection(file, departmentOffset, departmentCount, ENTRY_SIZE);
+    }
+
+    private static void checkSection(MemorySegment file, long offset, long count, int width) {
+        if (offset < HEADER_SIZE || count < 0 || count > (file.byteSize() - offset) / width) {
+            throw new IllegalArgumentException("Not a columnar snapshot");
+        }
+    }
+
+    // Maps the file; nothing is read beyond the header until it is queried
+    public static ColumnarSnapshot open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ColumnarSnapshot(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    public static void write(List<Person> persons, Path path) throws IOException {
+        write(PersonTable.fromPersons(persons), path);
+    }
+
+    public static void write(PersonTable table, Path path) throws IOException {
+        int n = table.size();
+        int blockCount = (n + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        byte[][] names = encode(table.nameCount(), table::nameOf);
+        byte[][] departments = encode(table.departmentCount(), table::departmentName);
+
+        long salaryOffset = HEADER_SIZE;
+        long ageOffset = align(salaryOffset + 8L * n);
+        long nameCodeOffset = align(ageOffset + 4L * n);
+        long departmentCodeOffset = align(nameCodeOffset + 4L * n);
+        long zoneOffset = align(departmentCodeOffset + 4L * n);
+        long nameOffset = zoneOffset + (long) ZONE_SIZE * blockCount;
+        long departmentOffset = align(nameOffset + dictionarySize(names));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Output out = new Output(channel)) {
+            out.putInt(MAGIC).putInt(VERSION).putLong(n).putInt(BLOCK_ROWS).putInt(blockCount)
+                .putInt(names.length).putInt(departments.length)
+                .putLong(salaryOffset).putLong(ageOffset).putLong(nameCodeOffset).putLong(departmentCodeOffset)
+                .putLong(zoneOffset).putLong(nameOffset).putLong(departmentOffset)
+                .padTo(HEADER_SIZE);
+
+            double[] salary = table.salaries();
+            int[] age = table.ages();
+            for (int i = 0; i < n; i++) {
+                out.putDouble(salary[i]);
+            }
+            out.padTo(ageOffset);
+            for (int i = 0; i < n; i++) {
+                out.putInt(age[i]);
+            }
+            out.padTo(nameCodeOffset);
+            for (int code : table.nameCodes()) {
+                out.putInt(code);
+            }
+            out.padTo(departmentCodeOffset);
+            for (int code : table.departmentCodes()) {
+                out.putInt(code);
+            }
+            out.padTo(zoneOffset);
+
+            int[] departmentCode = table.departmentCodes();
+            for (int block = 0; block < blockCount; block++) {
+                int from = block * BLOCK_ROWS;
+                int to = Math.min(n, from + BLOCK_ROWS);
+                int minAge = Integer.MAX_VALUE;
+                int maxAge = Integer.MIN_VALUE;
+                double minSalary = Double.POSITIVE_INFINITY;
+                double maxSalary = Double.NEGATIVE_INFINITY;
+                long departmentMask = 0;
+                for (int i = from; i < to; i++) {
+                    minAge = Math.min(minAge, age[i]);
+                    maxAge = Math.max(maxAge, age[i]);
+                    minSalary = Math.min(minSalary, salary[i]);
+                    maxSalary = Math.max(maxSalary, salary[i]);
+                    departmentMask |= 1L << departmentCode[i];
+                }
+                out.putInt(minAge).putInt(maxAge).putDouble(minSalary).putDouble(maxSalary).putLong(departmentMask);
+            }
+
+            out.padTo(nameOffset);
+            writeDictionary(out, names);
+            out.padTo(departmentOffset);
+            writeDictionary(out, departments);
+        }
+    }
+
+    // ---------- row access ----------
+
+    public long size() { return size; }
+    public int getAge(long row) { return file.get(INT, ageOffset + 4 * checkRow(row)); }
+    public double getSalary(long row) { return file.get(DOUBLE, salaryOffset + 8 * checkRow(row)); }
+    public int getNameCode(long row) { return file.get(INT, nameCodeOffset + 4 * checkRow(row)); }
+    public int getDepartmentCode(long row) { return file.get(INT, departmentCodeOffset + 4 * checkRow(row)); }
+    public String getName(long row) { return nameOf(getNameCode(row)); }
+    public String getDepartment(long row) { return departmentName(getDepartmentCode(row)); }
+
+    public Person toPerson(long row) {
+        return new Person(getName(row), getAge(row), getSalary(row), getDepartment(row));
+    }
+
+    // Materializes every row on the heap; for small snapshots and tests
+    public List<Person> toPersons() {
+        List<Person> persons = new ArrayList<>(Math.toIntExact(size));
+        for (long row = 0; row < size; row++) {
+            persons.add(toPerson(row));
+        }
+        return persons;
+    }
+
+    public int nameCount() { return nameCount; }
+    public String nameOf(int code) { return dictionaryEntry(nameOffset, nameCount, code); }
+    public int departmentCount() { return departmentCount; }
+    public String departmentName(int code) { return dictionaryEntry(departmentOffset, departmentCount, code); }
+
+    // Returns -1 if the department does not occur in the snapshot
+    public int departmentCodeOf(String department) {
+        for (int code = 0; code < departmentCount; code++) {
+            if (Objects.equals(departmentName(code), department)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    public int blockCount() { return blockCount; }
+
+    // ---------- range filters with block skipping ----------
+
+    // Problem 20: rows with low <= salary <= high, in row order
+    public void forEachRowWhereSalaryBetween(double low, double high, LongConsumer action) {
+        for (int block = 0; block < blockCount; block++) {
+            if (zoneMinSalary(block) > high || zoneMaxSalary(block) < low) {
+                continue;
+            }
+            long to = blockEnd(block);
+            for (long row = blockStart(block); row < to; row++) {
+                double salary = file.get(DOUBLE, salaryOffset + 8 * row);
+                if (salary >= low && salary <= high) {
+                    action.accept(row);
+                }
+            }
+        }
+    }
+
+    public long countWhereSalaryBetween(double low, double high) {
+        long count = 0;
+        for (int block = 0; block < blockCount; block++) {
+            double min = zoneMinSalary(block);
+            double max = zoneMaxSalary(block);
+            if (min > high || max < low) {
+                continue;
+            }
+            long from = blockStart(block);
+            long to = blockEnd(block);
+            if (min >= low && max <= high) {
+                count += to - from;
+                continue;
+            }
+            for (long row = from; row < to; row++) {
+                double salary = file.get(DOUBLE, salaryOffset + 8 * row);
+                if (salary >= low && salary <= high) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Rows with low <= age <= high, in row order
+    public void forEachRowWhereAgeBetween(int low, int high, LongConsumer action) {
+        for (int block = 0; block < blockCount; block++) {
+            if (zoneMinAge(block) > high || zoneMaxAge(block) < low) {
+                continue;
+            }
+            long to = blockEnd(block);
+            for (long row = blockStart(block); row < to; row++) {
+                int age = file.get(INT, ageOffset + 4 * row);
+                if (age >= low && age <= high) {
+                    action.accept(row);
+                }
+            }
+        }
+    }
+
+    // Rows of one department, in row order; blocks without it are skipped
+    public void forEachRowInDepartment(String department, LongConsumer action) {
+        int code = departmentCodeOf(department);
+        if (code < 0) {
+            return;
+        }
+        for (int block = 0; block < blockCount; block++) {
+            if ((zoneDepartmentMask(block) & (1L << code)) == 0) {
+                continue;
+            }
+            long to = blockEnd(block);
+            for (long row = blockStart(block); row < to; row++) {
+                if (file.get(INT, departmentCodeOffset + 4 * row) == code) {
+                    action.accept(row);
+                }
+            }
+        }
+    }
+
+    // Blocks a salary range has to read; the rest are skipped or fully counted
+    public int blocksToScanForSalary(double low, double high) {
+        int blocks = 0;
+        for (int block = 0; block < blockCount; block++) {
+            double min = zoneMinSalary(block);
+            double max = zoneMaxSalary(block);
+            if (!(min > high || max < low) && !(min >= low && max <= high)) {
+                blocks++;
+            }
+        }
+        return blocks;
+    }
+
+    public long fileBytes() {
+        return file.byteSize();
+    }
+
+    // Unmaps the file now; idempotent
+    @Override
+    public void close() {
+        if (arena.scope().isAlive()) {
+            arena.close();
+        }
+    }
+
+    private long checkRow(long row) {
+        return Objects.checkIndex(row, size);
+    }
+
+    private long blockStart(int block) {
+        return (long) block * blockRows;
+    }
+
+    private long blockEnd(int block) {
+        return Math.min(size, blockStart(block) + blockRows);
+    }
+
+    private int zoneMinAge(int block) { return file.get(INT, zoneOffset + (long) ZONE_SIZE * block); }
+    private int zoneMaxAge(int block) { return file.get(INT, zoneOffset + (long) ZONE_SIZE * block + 4); }
+    private double zoneMinSalary(int block) { return file.get(DOUBLE, zoneOffset + (long) ZONE_SIZE * block + 8); }
+    private double zoneMaxSalary(int block) { return file.get(DOUBLE, zoneOffset + (long) ZONE_SIZE * block + 16); }
+    private long zoneDepartmentMask(int block) { return file.get(LONG, zoneOffset + (long) ZONE_SIZE * block + 24); }
+
+    private String dictionaryEntry(long offset, int count, int code) {
+        Objects.checkIndex(code, count);
+        long entry = offset + (long) ENTRY_SIZE * code;
+        int length = file.get(INT, entry + 8);
+        if (length < 0) {
+            return null;
+        }
+        long start = offset + (long) ENTRY_SIZE * count + file.get(LONG, entry);
+        if (start < offset || start > file.byteSize() - length) {
+            throw new IllegalArgumentException("Not a columnar snapshot");
+        }
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(file, ValueLayout.JAVA_BYTE, start, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] encode(int count, IntFunction<String> value) {
+        byte[][] encoded = new byte[count][];
+        for (int code = 0; code < count; code++) {
+            String s = value.apply(code);
+            encoded[code] = s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private static long dictionarySize(byte[][] values) {
+        long size = (long) ENTRY_SIZE * values.length;
+        for (byte[] value : values) {
+            size += value == null ? 0 : value.length;
+        }
+        return size;
+    }
+
+    private static void writeDictionary(Output out, byte[][] values) throws IOException {
+        long position = 0;
+        for (byte[] value : values) {
+            out.putLong(position).putInt(value == null ? -1 : value.length).putInt(0);
+            position += value == null ? 0 : value.length;
+        }
+        for (byte[] value : values) {
+            if (value != null) {
+                out.putBytes(value);
+            }
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    // Buffered little-endian writer that tracks the file position
+    private static class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        Output putInt(int value) throws IOException {
+            ensure(4).putInt(value);
+            position += 4;
+            return this;
+        }
+
+        Output putLong(long value) throws IOException {
+            ensure(8).putLong(value);
+            position += 8;
+            return this;
+        }
+
+        Output putDouble(double value) throws IOException {
+            ensure(8).putDouble(value);
+            position += 8;
+            return this;
+        }
+
+        Output putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int chunk = Math.min(bytes.length - offset, buffer.capacity());
+                ensure(chunk).put(bytes, offset, chunk);
+                offset += chunk;
+            }
+            position += bytes.length;
+            return this;
+        }
+
+        Output padTo(long offset) throws IOException {
+            while (position < offset) {
+                ensure(1).put((byte) 0);
+                position++;
+            }
+            return this;
+        }
+
+        private ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
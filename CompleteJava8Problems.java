@@ -44,6 +44,7 @@ public class CompleteJava8Problems {
             new Person("Tom", 31, 65000, "IT"),
             new Person("Emily", 26, 48000, "Finance")
         );
+        PersonTable table = PersonTable.fromPersons(persons);
         
         System.out.println("===== COMPLETE JAVA 8 STREAM API MASTER CLASS =====");
         System.out.println("Total Employees: " + persons.size() + "\n");
@@ -53,10 +54,13 @@ public class CompleteJava8Problems {
         
         // Problem 61: Multiple filter conditions
         System.out.println("\n61. IT employees aged 25-35 with salary > 50000:");
-        List<Person> filtered = persons.stream()
-            .filter(p -> "IT".equals(p.getDepartment()))
-            .filter(p -> p.getAge() >= 25 && p.getAge() <= 35)
-            .filter(p -> p.getSalary() > 50000)
+        // Each condition comes from prebuilt bitmaps (department, age decades,
+        // salary brackets); the filter is their word-level AND
+        RoaringBitmap matches = table.departmentBitmaps().get("IT")
+            .and(table.ageBetween(25, 35))
+            .and(table.salaryAbove(50000));
+        List<Person> filtered = Arrays.stream(matches.toArray())
+            .mapToObj(persons::get)
             .collect(Collectors.toList());
         filtered.forEach(p -> System.out.println("  - " + p));
         
@@ -114,14 +118,15 @@ public class CompleteJava8Problems {
         
         // Problem 66: Partitioning with multiple conditions
         System.out.println("\n66. Complex partitioning:");
-        Map<Boolean, Map<String, List<Person>>> complexPartition = persons.stream()
-            .collect(Collectors.partitioningBy(
-                p -> p.getSalary() > 60000,
-                Collectors.groupingBy(Person::getDepartment)
-            ));
+        // High earners bitmap ANDed with each department bitmap
+        Map<String, List<String>> highEarnersByDept = table.departmentBitmaps().within(table.salaryAbove(60000))
+            .entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, e -> Arrays.stream(e.getValue().toArray())
+                .mapToObj(row -> persons.get(row).getName())
+                .collect(Collectors.toList())));
         System.out.println("  High earners (>60000):");
-        complexPartition.get(true).forEach((dept, list) -> 
-            System.out.println("    " + dept + ": " + list.stream().map(Person::getName).collect(Collectors.toList())));
+        highEarnersByDept.forEach((dept, names) -> 
+            System.out.println("    " + dept + ": " + names));
         
         // ========== SECTION 4: REDUCTION OPERATIONS ==========
         System.out.println("\n\n=== SECTION 4: REDUCTION OPERATIONS ===");
@@ -136,8 +141,9 @@ public class CompleteJava8Problems {
         
         // Problem 68: Parallel stream reduction
         System.out.println("\n68. Parallel stream - sum of salaries:");
-        double parallelSum = persons.parallelStream()
-            .mapToDouble(Person::getSalary)
+        // Block-aligned splits over the salary column instead of the list's spliterator
+        double parallelSum = table.salaryStream()
+            .parallel()
             .reduce(0, Double::sum);
         System.out.println("  Parallel sum: " + parallelSum);
         
@@ -182,31 +188,33 @@ public class CompleteJava8Problems {
         
         // Problem 72: IntStream operations
         System.out.println("\n72. IntStream statistics:");
-        IntSummaryStatistics ageStats = persons.stream()
-            .mapToInt(Person::getAge)
-            .summaryStatistics();
+        IntSummaryStatistics ageStats = table.ageStatistics();
         System.out.println("  Age Stats: " + ageStats);
         
         // Problem 73: DoubleStream operations
         System.out.println("\n73. Salary range analysis:");
-        DoubleStream salaryStream = persons.stream()
-            .mapToDouble(Person::getSalary);
-        System.out.println("  Min: " + salaryStream.min().orElse(0));
-        System.out.println("  Max: " + persons.stream().mapToDouble(Person::getSalary).max().orElse(0));
+        double minSalary = table.size() == 0 ? 0 : table.minSalary();
+        double maxSalary = table.size() == 0 ? 0 : table.maxSalary();
+        System.out.println("  Min: " + minSalary);
+        System.out.println("  Max: " + maxSalary);
         
         // ========== SECTION 8: PARALLEL STREAMS ==========
         System.out.println("\n\n=== SECTION 8: PARALLEL STREAMS ===");
         
         // Problem 74: Parallel stream with thread-safe collection
         System.out.println("\n74. Parallel stream processing:");
-        List<String> parallelProcessed = persons.parallelStream()
-            .filter(p -> p.getSalary() > 50000)
-            .map(p -> {
-                // Simulate some processing
-                return Thread.currentThread().getName() + " processed " + p.getName();
-            })
-            .collect(Collectors.toList());
-        parallelProcessed.forEach(msg -> System.out.println("  " + msg));
+        // On a dedicated pool, so the workers printed are "analytics-worker-N"
+        // rather than shared common-pool threads
+        try (QueryExecutor analytics = QueryExecutor.create("analytics", 2)) {
+            List<String> parallelProcessed = analytics.run(context -> context.stream(persons)
+                .filter(p -> p.getSalary() > 50000)
+                .map(p -> {
+                    // Simulate some processing
+                    return Thread.currentThread().getName() + " processed " + p.getName();
+                })
+                .collect(Collectors.toList()));
+            parallelProcessed.forEach(msg -> System.out.println("  " + msg));
+        }
         
         // ========== SECTION 9: STREAM GENERATION ==========
         System.out.println("\n\n=== SECTION 9: STREAM GENERATION ===");
@@ -253,12 +261,7 @@ public class CompleteJava8Problems {
         // Problem 78: Custom collector
         System.out.println("\n78. Custom collector - collect to custom object:");
         EmployeeSummary summary = persons.stream()
-            .collect(Collector.of(
-                EmployeeSummary::new,
-                EmployeeSummary::accept,
-                EmployeeSummary::combine,
-                Collector.Characteristics.CONCURRENT
-            ));
+            .collect(EmployeeSummary.collector());
         System.out.println("  Summary: " + summary);
         
         // ========== SECTION 12: STREAM PIPELINES ==========
@@ -380,7 +383,7 @@ public class CompleteJava8Problems {
         // Problem 87: forEachOrdered
         System.out.println("\n87. Parallel stream with forEachOrdered:");
         System.out.print("  Names in order: ");
-        persons.parallelStream()
+        RowSpliterators.stream(persons, true)
             .map(Person::getName)
             .forEachOrdered(name -> System.out.print(name + " "));
         
@@ -401,7 +404,7 @@ public class CompleteJava8Problems {
         
         // Problem 89: Reduce with identity, accumulator, combiner
         System.out.println("\n89. Reduce with combiner (parallel safe):");
-        Integer totalNameLength = persons.parallelStream()
+        Integer totalNameLength = RowSpliterators.stream(persons, true)
             .reduce(0,
                 (sum, p) -> sum + p.getName().length(),  // Accumulator
                 Integer::sum);                           // Combiner
@@ -437,11 +440,7 @@ public class CompleteJava8Problems {
         
         // Problem 92: Summarizing collectors
         System.out.println("\n92. Salary summarizing by department:");
-        Map<String, DoubleSummaryStatistics> salarySummaries = persons.stream()
-            .collect(Collectors.groupingBy(
-                Person::getDepartment,
-                Collectors.summarizingDouble(Person::getSalary)
-            ));
+        Map<String, DoubleSummaryStatistics> salarySummaries = table.salaryStatisticsByDepartment();
         salarySummaries.forEach((dept, stats) -> 
             System.out.println("  " + dept + ": " + stats));
         
@@ -517,48 +516,7 @@ public class CompleteJava8Problems {
         // Problem 98: Complete business logic pipeline
         System.out.println("\n98. Complete business analysis:");
         
-        Map<String, Object> businessReport = persons.stream()
-            .collect(Collectors.collectingAndThen(
-                Collectors.toList(),
-                list -> {
-                    Map<String, Object> report = new HashMap<>();
-                    
-                    // Basic stats
-                    report.put("totalEmployees", list.size());
-                    report.put("totalSalary", list.stream().mapToDouble(Person::getSalary).sum());
-                    report.put("averageAge", list.stream().mapToInt(Person::getAge).average().orElse(0));
-                    
-                    // Department analysis
-                    Map<String, Long> deptCount = list.stream()
-                        .collect(Collectors.groupingBy(Person::getDepartment, Collectors.counting()));
-                    report.put("departmentDistribution", deptCount);
-                    
-                    // Salary analysis
-                    Map<String, Double> deptAvgSalary = list.stream()
-                        .collect(Collectors.groupingBy(
-                            Person::getDepartment,
-                            Collectors.averagingDouble(Person::getSalary)
-                        ));
-                    report.put("departmentAvgSalary", deptAvgSalary);
-                    
-                    // Age groups
-                    Map<String, Long> ageGroups = list.stream()
-                        .collect(Collectors.groupingBy(
-                            p -> p.getAge() < 30 ? "Young" : p.getAge() < 40 ? "Middle" : "Senior",
-                            Collectors.counting()
-                        ));
-                    report.put("ageGroups", ageGroups);
-                    
-                    // High earners
-                    List<String> highEarners = list.stream()
-                        .filter(p -> p.getSalary() > 70000)
-                        .map(Person::getName)
-                        .collect(Collectors.toList());
-                    report.put("highEarners", highEarners);
-                    
-                    return report;
-                }
-            ));
+        Map<String, Object> businessReport = BusinessReport.singlePass(persons);
         
         System.out.println("  Business Report:");
         businessReport.forEach((key, value) -> System.out.println("    " + key + ": " + value));
@@ -566,21 +524,24 @@ public class CompleteJava8Problems {
         // Problem 99: Performance comparison
         System.out.println("\n99. Sequential vs Parallel performance:");
         
-        long seqStart = System.currentTimeMillis();
+        // One short warmup and measurement each (about 20 ms in all), just to
+        // show the harness; the real comparison lives in StreamBenchmarks
+        BenchmarkRunner runner = new BenchmarkRunner(1, 1, 5);
+        BenchmarkRunner.Result seqResult = runner.run("sequential",
+            () -> persons.stream().mapToDouble(Person::getSalary).sum());
+        BenchmarkRunner.Result parResult = runner.run("parallel",
+            () -> table.salaryStream().parallel().sum());
         double seqSum = persons.stream()
             .mapToDouble(Person::getSalary)
             .sum();
-        long seqEnd = System.currentTimeMillis();
-        
-        long parStart = System.currentTimeMillis();
-        double parSum = persons.parallelStream()
-            .mapToDouble(Person::getSalary)
+        double parSum = table.salaryStream()
+            .parallel()
             .sum();
-        long parEnd = System.currentTimeMillis();
         
-        System.out.println("  Sequential time: " + (seqEnd - seqStart) + "ms");
-        System.out.println("  Parallel time: " + (parEnd - parStart) + "ms");
+        System.out.println("  Sequential time: " + String.format("%.1f", seqResult.getMeanNanos()) + "ns/op");
+        System.out.println("  Parallel time: " + String.format("%.1f", parResult.getMeanNanos()) + "ns/op");
         System.out.println("  Sum is equal: " + (seqSum == parSum));
+        System.out.println("  For realistic sizes run: java StreamBenchmarks only=parallel");
         
         // Problem 100: Master Challenge
         System.out.println("\n100. MASTER CHALLENGE: Complete Employee Analytics");
@@ -613,39 +574,6 @@ public class CompleteJava8Problems {
         }
     }
     
-    static class EmployeeSummary {
-        private int count;
-        private double totalSalary;
-        private int totalAge;
-        
-        public void accept(Person p) {
-            count++;
-            totalSalary += p.getSalary();
-            totalAge += p.getAge();
-        }
-        
-        public EmployeeSummary combine(EmployeeSummary other) {
-            this.count += other.count;
-            this.totalSalary += other.totalSalary;
-            this.totalAge += other.totalAge;
-            return this;
-        }
-        
-        public double getAverageSalary() {
-            return count > 0 ? totalSalary / count : 0;
-        }
-        
-        public double getAverageAge() {
-            return count > 0 ? (double) totalAge / count : 0;
-        }
-        
-        @Override
-        public String toString() {
-            return String.format("Employees: %d, Avg Salary: %.2f, Avg Age: %.1f", 
-                count, getAverageSalary(), getAverageAge());
-        }
-    }
-    
     static class EmployeeDashboard {
         private List<Person> employees;
         
@@ -654,35 +582,59 @@ public class CompleteJava8Problems {
         }
         
         public void displayDashboard() {
+            // One scan for the totals, salary analysis, top earners and the
+            // per-department slices
+            Map<String, Object> aggregates = employees.stream()
+                .collect(MultiCollector.<Person>builder()
+                    .add("salary", Collectors.summarizingDouble(Person::getSalary))
+                    .add("departments", Collectors.groupingBy(Person::getDepartment))
+                    .add("topEarners", TopK.largest(3, Person::getSalary))
+                    .build());
+            DoubleSummaryStatistics stats = (DoubleSummaryStatistics) aggregates.get("salary");
+            @SuppressWarnings("unchecked")
+            Map<String, List<Person>> byDepartment = (Map<String, List<Person>>) aggregates.get("departments");
+            @SuppressWarnings("unchecked")
+            List<Person> topEarners = (List<Person>) aggregates.get("topEarners");
+
+            // Each department's sub-report is computed from its own slice on a
+            // virtual thread; all printing happens here, in grouping order
+            ReportRunner runner = new ReportRunner();
+            byDepartment.forEach((dept, members) -> runner.section(dept, () -> departmentReport(dept, members)));
+            ReportRunner.Report report = runner.run();
+            
             System.out.println("\n  === EMPLOYEE DASHBOARD ===");
             
             // Top section
             System.out.println("  Total Employees: " + employees.size());
             System.out.println("  Total Salary Cost: " + 
-                String.format("%.2f", employees.stream().mapToDouble(Person::getSalary).sum()));
+                String.format("%.2f", stats.getSum()));
             
             // Department breakdown
             System.out.println("\n  Department Breakdown:");
-            employees.stream()
-                .collect(Collectors.groupingBy(Person::getDepartment, Collectors.counting()))
-                .forEach((dept, count) -> 
-                    System.out.println("    " + dept + ": " + count + " employees"));
+            byDepartment.keySet().forEach(dept -> 
+                System.out.println(report.<String>get(dept)));
             
             // Salary analysis
             System.out.println("\n  Salary Analysis:");
-            DoubleSummaryStatistics stats = employees.stream()
-                .mapToDouble(Person::getSalary)
-                .summaryStatistics();
             System.out.println("    Min: " + stats.getMin());
             System.out.println("    Max: " + stats.getMax());
             System.out.println("    Avg: " + String.format("%.2f", stats.getAverage()));
             
             // Top performers
             System.out.println("\n  Top 3 Earners:");
-            employees.stream()
-                .sorted(Comparator.comparingDouble(Person::getSalary).reversed())
-                .limit(3)
-                .forEach(p -> System.out.println("    " + p.getName() + ": " + p.getSalary()));
+            topEarners.forEach(p -> System.out.println("    " + p.getName() + ": " + p.getSalary()));
+        }
+
+        private static String departmentReport(String dept, List<Person> members) {
+            DoubleSummaryStatistics salaries = members.stream()
+                .collect(Collectors.summarizingDouble(Person::getSalary));
+            String top = members.stream()
+                .collect(TopK.largest(2, Person::getSalary)).stream()
+                .map(p -> p.getName() + " (" + p.getSalary() + ")")
+                .collect(Collectors.joining(", "));
+            return "    " + dept + ": " + salaries.getCount() + " employees\n"
+                + String.format("      Salary min %.2f, avg %.2f, max %.2f; top: %s",
+                    salaries.getMin(), salaries.getAverage(), salaries.getMax(), top);
         }
     }
 }
\ No newline at end of file
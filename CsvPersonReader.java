@@ -0,0 +1,577 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Streaming reader for employee CSV files with the columns
+//   name,age,salary,department
+// (the Person/Employee constructor order), UTF-8, one row per line.
+//
+// The file is read through a FileChannel into a reusable byte buffer and
+// parsed in place: age and salary are parsed from the bytes, and department
+// bytes are looked up in a per-parser string pool, so a department String is
+// only created the first time it is seen. Names almost never repeat, so they
+// are not pooled: a name is decoded straight from the buffer, and only for
+// rows that pass every filter, which keeps forEach's memory flat however
+// many distinct names the file has. Filters are applied to the parsed fields
+// before anything is built, and a department filter is evaluated once per
+// distinct department, so for Problem 1
+//   CsvPersonReader.of(path).whereDepartment("IT"::equals).readPersons()
+// rows of other departments cost a pool lookup and nothing else.
+//
+// Quoted fields ("a,b" with "" for a quote) are supported, but a field may
+// not contain a line break: parallel() splits the file at line breaks.
+public class CsvPersonReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MIN_CHUNK = 1 << 20;
+
+    private final Path path;
+    private boolean header;
+    private byte delimiter = ',';
+    private Predicate<? super String> departmentFilter;
+    private IntPredicate ageFilter;
+    private DoublePredicate salaryFilter;
+    private boolean parallel;
+
+    private CsvPersonReader(Path path) {
+        this.path = path;
+    }
+
+    public static CsvPersonReader of(Path path) {
+        return new CsvPersonReader(path);
+    }
+
+    // Skip the first line
+    public CsvPersonReader withHeader() {
+        this.header = true;
+        return this;
+    }
+
+    public CsvPersonReader delimiter(char delimiter) {
+        if (delimiter > 0x7F || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+        }
+        this.delimiter = (byte) delimiter;
+        return this;
+    }
+
+    // Filters are ANDed; calling one twice replaces the earlier filter
+    public CsvPersonReader whereDepartment(Predicate<? super String> department) {
+        this.departmentFilter = department;
+        return this;
+    }
+
+    public CsvPersonReader whereAge(IntPredicate age) {
+        this.ageFilter = age;
+        return this;
+    }
+
+    public CsvPersonReader whereSalary(DoublePredicate salary) {
+        this.salaryFilter = salary;
+        return this;
+    }
+
+    // Split the file into chunks on line boundaries and parse them in parallel;
+    // rows still come out in file order
+    public CsvPersonReader parallel() {
+        this.parallel = true;
+        return this;
+    }
+
+    public interface RowHandler {
+        void accept(String name, int age, double salary, String department);
+    }
+
+    // Streams matching rows to handler in file order without buffering them.
+    // Always sequential; the handler does not need to be thread-safe.
+    public void forEach(RowHandler handler) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            new Parser(channel, 0, channel.size(), header).parse(handler);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public List<Person> readPersons() {
+        List<Person> persons = new ArrayList<>();
+        read((name, age, salary, department) -> persons.add(new Person(name, age, salary, department)));
+        return persons;
+    }
+
+    public List<Employee> readEmployees() {
+        List<Employee> employees = new ArrayList<>();
+        read((name, age, salary, department) -> employees.add(new Employee(name, age, salary, department)));
+        return employees;
+    }
+
+    // Rows go straight into the columnar form, no Person objects in between
+    public PersonTable readTable() {
+        PersonTable.Builder builder = PersonTable.builder();
+        read(builder::add);
+        return builder.build();
+    }
+
+    private void read(RowHandler handler) {
+        if (!parallel) {
+            forEach(handler);
+            return;
+        }
+        for (Rows rows : readChunks()) {
+            rows.replay(handler);
+        }
+    }
+
+    private List<Rows> readChunks() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            return IntStream.range(0, bounds.length - 1)
+                .parallel()
+                .mapToObj(chunk -> {
+                    Rows rows = new Rows();
+                    try {
+                        new Parser(channel, bounds[chunk], bounds[chunk + 1], header && chunk == 0).parse(rows);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return rows;
+                })
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // One chunk per core (at least MIN_CHUNK bytes each), every boundary moved
+    // forward to just after a line break
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int chunks = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), size / MIN_CHUNK));
+        long[] bounds = new long[chunks + 1];
+        bounds[chunks] = size;
+        ByteBuffer probe = ByteBuffer.allocate(BUFFER_SIZE);
+        for (int i = 1; i < chunks; i++) {
+            long position = Math.max(bounds[i - 1], size / chunks * i);
+            bounds[i] = size;
+            search:
+            while (position < size) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int j = 0; j < read; j++) {
+                    if (probe.get(j) == '\n') {
+                        bounds[i] = position + j + 1;
+                        break search;
+                    }
+                }
+                position += read;
+            }
+        }
+        return bounds;
+    }
+
+    // Parses the lines starting in [start, end) of the file
+    private class Parser {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private boolean skipLine;
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private final StringPool departments = new StringPool();
+        // Department filter verdict by pool id: 0 = not evaluated yet, 1 = keep, 2 = drop
+        private byte[] departmentVerdicts = new byte[16];
+        private byte[] unquoted = new byte[64];
+        private long lineStart;
+
+        Parser(FileChannel channel, long start, long end, boolean skipHeader) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.skipLine = skipHeader;
+        }
+
+        void parse(RowHandler handler) throws IOException {
+            long position = start;
+            int filled = 0;
+            boolean eof = false;
+            while (!eof || filled > 0) {
+                if (!eof) {
+                    if (filled == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    // Positional reads, so parallel parsers can share the channel
+                    int read = channel.read(ByteBuffer.wrap(buffer, filled, buffer.length - filled), position);
+                    if (read <= 0) {
+                        eof = true;
+                    } else {
+                        position += read;
+                        filled += read;
+                    }
+                }
+                // A line belongs to this chunk if it starts before end
+                long bufferStart = position - filled;
+                int from = 0;
+                while (true) {
+                    if (bufferStart + from >= end) {
+                        return;
+                    }
+                    int newline = indexOf(buffer, (byte) '\n', from, filled);
+                    if (newline < 0) {
+                        if (eof && from < filled) {
+                            lineStart = bufferStart + from;
+                            line(buffer, from, filled, handler);
+                            from = filled;
+                        }
+                        break;
+                    }
+                    lineStart = bufferStart + from;
+                    line(buffer, from, newline, handler);
+                    from = newline + 1;
+                }
+                System.arraycopy(buffer, from, buffer, 0, filled - from);
+                filled -= from;
+                if (eof) {
+                    return;
+                }
+            }
+        }
+
+        private void line(byte[] b, int from, int to, RowHandler handler) {
+            if (to > from && b[to - 1] == '\r') {
+                to--;
+            }
+            if (skipLine) {
+                skipLine = false;
+                return;
+            }
+            if (to == from) {
+                return;
+            }
+            // name
+            int nameStart = from;
+            int nameEnd = fieldEnd(b, from, to);
+            // age
+            int p = nameEnd + 1;
+            int ageEnd = fieldEnd(b, p, to);
+            int age = parseInt(b, p, ageEnd);
+            if (ageFilter != null && !ageFilter.test(age)) {
+                return;
+            }
+            // salary
+            p = ageEnd + 1;
+            int salaryEnd = fieldEnd(b, p, to);
+            double salary = parseDouble(b, p, salaryEnd);
+            if (salaryFilter != null && !salaryFilter.test(salary)) {
+                return;
+            }
+            // department
+            p = salaryEnd + 1;
+            int departmentEnd = fieldEnd(b, p, to);
+            if (departmentEnd != to) {
+                throw malformed("expected 4 fields");
+            }
+            int departmentId = intern(departments, b, p, departmentEnd);
+            if (departmentFilter != null && !keepDepartment(departmentId)) {
+                return;
+            }
+            // Only rows that passed every filter get their name decoded
+            handler.accept(text(b, nameStart, nameEnd), age, salary, departments.get(departmentId));
+        }
+
+        private boolean keepDepartment(int id) {
+            if (id >= departmentVerdicts.length) {
+                departmentVerdicts = Arrays.copyOf(departmentVerdicts, Math.max(id + 1, departmentVerdicts.length * 2));
+            }
+            if (departmentVerdicts[id] == 0) {
+                departmentVerdicts[id] = (byte) (departmentFilter.test(departments.get(id)) ? 1 : 2);
+            }
+            return departmentVerdicts[id] == 1;
+        }
+
+        // Index of the delimiter ending the field that starts at from, or to
+        private int fieldEnd(byte[] b, int from, int to) {
+            if (from > to) {
+                throw malformed("expected 4 fields");
+            }
+            int i = from;
+            if (i < to && b[i] == '"') {
+                i++;
+                while (true) {
+                    if (i >= to) {
+                        throw malformed("unterminated quote");
+                    }
+                    if (b[i] == '"') {
+                        if (i + 1 < to && b[i + 1] == '"') {
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    i++;
+                }
+                if (i < to && b[i] != delimiter) {
+                    throw malformed("text after closing quote");
+                }
+                return i;
+            }
+            while (i < to && b[i] != delimiter) {
+                i++;
+            }
+            return i;
+        }
+
+        // Pool id of the field's text; quotes are removed first
+        private int intern(StringPool pool, byte[] b, int from, int to) {
+            if (isQuoted(b, from, to)) {
+                return pool.intern(unquoted, 0, unquote(b, from, to));
+            }
+            return pool.intern(b, from, to);
+        }
+
+        // The field's text as a new String; quotes are removed first
+        private String text(byte[] b, int from, int to) {
+            if (isQuoted(b, from, to)) {
+                return new String(unquoted, 0, unquote(b, from, to), StandardCharsets.UTF_8);
+            }
+            return new String(b, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        private boolean isQuoted(byte[] b, int from, int to) {
+            return to - from >= 2 && b[from] == '"';
+        }
+
+        // Copies the quoted field's content into unquoted, "" as one quote; returns its length
+        private int unquote(byte[] b, int from, int to) {
+            int length = 0;
+            if (unquoted.length < to - from) {
+                unquoted = new byte[to - from];
+            }
+            for (int i = from + 1; i < to - 1; i++) {
+                unquoted[length++] = b[i];
+                if (b[i] == '"') {
+                    i++;
+                }
+            }
+            return length;
+        }
+
+        private int parseInt(byte[] b, int from, int to) {
+            from = trimStart(b, from, to);
+            to = trimEnd(b, from, to);
+            if (to - from >= 2 && b[from] == '"' && b[to - 1] == '"') {
+                from++;
+                to--;
+            }
+            boolean negative = from < to && b[from] == '-';
+            int i = negative || (from < to && b[from] == '+') ? from + 1 : from;
+            if (i == to) {
+                throw malformed("expected an integer age");
+            }
+            long value = 0;
+            for (; i < to; i++) {
+                int digit = b[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw malformed("expected an integer age");
+                }
+                value = value * 10 + digit;
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    throw malformed("age out of range");
+                }
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw malformed("age out of range");
+            }
+            return (int) value;
+        }
+
+        // Plain decimals like 50000 or 52000.75 are converted exactly from the
+        // digits when that is lossless (at most 15 significant digits and 22
+        // decimals, where mantissa / 10^k is correctly rounded); anything else
+        // falls back to Double.parseDouble
+        private double parseDouble(byte[] b, int from, int to) {
+            from = trimStart(b, from, to);
+            to = trimEnd(b, from, to);
+            if (to - from >= 2 && b[from] == '"' && b[to - 1] == '"') {
+                from++;
+                to--;
+            }
+            int i = from;
+            boolean negative = i < to && b[i] == '-';
+            if (negative || (i < to && b[i] == '+')) {
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int decimals = 0;
+            boolean point = false;
+            boolean simple = i < to;
+            for (; i < to && simple; i++) {
+                byte c = b[i];
+                if (c >= '0' && c <= '9') {
+                    if (mantissa != 0 || c != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (point) {
+                        decimals++;
+                    }
+                    simple = digits <= 15;
+                } else if (c == '.' && !point) {
+                    point = true;
+                } else {
+                    simple = false;
+                }
+            }
+            if (simple && decimals <= 22 && (to - from) > (point ? 1 : 0) + (negative ? 1 : 0)) {
+                double value = decimals == 0 ? mantissa : mantissa / POWERS_OF_TEN[decimals];
+                return negative ? -value : value;
+            }
+            try {
+                return Double.parseDouble(new String(b, from, to - from, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw malformed("expected a number for salary");
+            }
+        }
+
+        private int trimStart(byte[] b, int from, int to) {
+            while (from < to && b[from] == ' ') {
+                from++;
+            }
+            return from;
+        }
+
+        private int trimEnd(byte[] b, int from, int to) {
+            while (to > from && b[to - 1] == ' ') {
+                to--;
+            }
+            return to;
+        }
+
+        private IllegalArgumentException malformed(String reason) {
+            return new IllegalArgumentException("Malformed CSV line at byte " + lineStart + " of " + path + ": " + reason);
+        }
+    }
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static int indexOf(byte[] b, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // UTF-8 byte sequences to Strings, creating each distinct String once.
+    // Open addressing on a hash of the bytes; ids are assigned in order.
+    private static class StringPool {
+        private byte[][] keys = new byte[16][];
+        private int[] ids = new int[16];
+        private int[] hashes = new int[16];
+        private String[] strings = new String[8];
+        private int size;
+
+        int intern(byte[] b, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + b[i];
+            }
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != null) {
+                if (hashes[slot] == hash && Arrays.equals(keys[slot], 0, keys[slot].length, b, from, to)) {
+                    return ids[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] key = Arrays.copyOfRange(b, from, to);
+            if (size == strings.length) {
+                strings = Arrays.copyOf(strings, size * 2);
+            }
+            strings[size] = new String(key, StandardCharsets.UTF_8);
+            keys[slot] = key;
+            hashes[slot] = hash;
+            ids[slot] = size;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        String get(int id) {
+            return strings[id];
+        }
+
+        private void rehash() {
+            byte[][] oldKeys = keys;
+            int[] oldIds = ids;
+            int[] oldHashes = hashes;
+            keys = new byte[oldKeys.length * 2][];
+            ids = new int[keys.length];
+            hashes = new int[keys.length];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = (oldHashes[i] ^ (oldHashes[i] >>> 16)) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    ids[slot] = oldIds[i];
+                    hashes[slot] = oldHashes[i];
+                }
+            }
+        }
+    }
+
+    // Parsed rows of one parallel chunk, kept column-wise until replayed in order
+    private static class Rows implements RowHandler {
+        private String[] names = new String[1024];
+        private int[] ages = new int[1024];
+        private double[] salaries = new double[1024];
+        private String[] departments = new String[1024];
+        private int size;
+
+        @Override
+        public void accept(String name, int age, double salary, String department) {
+            if (size == ages.length) {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                salaries = Arrays.copyOf(salaries, capacity);
+                departments = Arrays.copyOf(departments, capacity);
+            }
+            names[size] = name;
+            ages[size] = age;
+            salaries[size] = salary;
+            departments[size] = department;
+            size++;
+        }
+
+        void replay(RowHandler handler) {
+            for (int i = 0; i < size; i++) {
+                handler.accept(names[i], ages[i], salaries[i], departments[i]);
+            }
+        }
+    }
+}
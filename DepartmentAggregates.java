@@ -0,0 +1,295 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Materialized per-department aggregates (Problems 5, 6, 11, 13): count,
+// salary sum/min/max and age sum, kept up to date as employees are added,
+// removed or changed instead of rebuilt with groupingBy on every read.
+// Age changes are O(1); adds, removes, salary and department changes are
+// O(log n) in the department's size, for the salary multiset behind min/max.
+// Reads cost O(departments).
+//
+// A tracked employee carries this instance as its Employee change listener,
+// so employee.setSalary(...) and the other Employee setters update the
+// aggregates too, and a null department is rejected before anything changes.
+// An employee can be tracked by one DepartmentAggregates at a time.
+//
+// setSalary/setDepartment/setAge here are safe for concurrent writers: each
+// change locks its employee and then the departments it touches (in name
+// order), so writers on different departments do not wait for each other.
+// Calling the Employee setters directly is fine as long as no other thread
+// changes the same employee at the same time. snapshot() excludes writers for
+// the O(departments) copy, so every snapshot is one consistent cut across
+// all departments. Salary sums are exact for whole-number salaries; with
+// fractional ones repeated add/subtract can drift in the last bits from a
+// fresh summingDouble.
+//
+//   DepartmentAggregates aggregates = DepartmentAggregates.of(empList);
+//   aggregates.setSalary(john, 52000);
+//   aggregates.counts().forEach((dept, count) -> ...);
+public class DepartmentAggregates {
+    // Writers share the read side; snapshot() takes the write side
+    private final ReadWriteLock cut = new ReentrantReadWriteLock();
+    private final Set<Employee> members = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Department> departments = new ConcurrentHashMap<>();
+    private final Employee.ChangeListener listener = this::changing;
+
+    public static DepartmentAggregates of(Collection<Employee> employees) {
+        DepartmentAggregates aggregates = new DepartmentAggregates();
+        employees.forEach(aggregates::add);
+        return aggregates;
+    }
+
+    // Returns false if the employee is already tracked
+    public boolean add(Employee e) {
+        cut.readLock().lock();
+        try {
+            synchronized (e) {
+                Department dept = department(Objects.requireNonNull(e.getDepartment(), "department"));
+                if (e.getChangeListener() != null && e.getChangeListener() != listener) {
+                    throw new IllegalArgumentException("Employee is tracked by other aggregates: " + e);
+                }
+                if (!members.add(e)) {
+                    return false;
+                }
+                synchronized (dept) {
+                    dept.add(e.getSalary(), e.getAge());
+                }
+                e.setChangeListener(listener);
+                return true;
+            }
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    // Returns false if the employee is not tracked
+    public boolean remove(Employee e) {
+        cut.readLock().lock();
+        try {
+            synchronized (e) {
+                if (!members.remove(e)) {
+                    return false;
+                }
+                e.setChangeListener(null);
+                Department dept = department(e.getDepartment());
+                synchronized (dept) {
+                    dept.remove(e.getSalary(), e.getAge());
+                }
+                return true;
+            }
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    // The setters below hold the employee's lock across the Employee setter,
+    // which calls back into changing() for the aggregates
+    public void setSalary(Employee e, double salary) {
+        cut.readLock().lock();
+        try {
+            synchronized (e) {
+                checkTracked(e);
+                e.setSalary(salary);
+            }
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    public void setAge(Employee e, int age) {
+        cut.readLock().lock();
+        try {
+            synchronized (e) {
+                checkTracked(e);
+                e.setAge(age);
+            }
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    public void setDepartment(Employee e, String department) {
+        cut.readLock().lock();
+        try {
+            synchronized (e) {
+                checkTracked(e);
+                e.setDepartment(department);
+            }
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    // Departments with at least one employee; unordered, like groupingBy
+    public Map<String, Stats> snapshot() {
+        cut.writeLock().lock();
+        try {
+            Map<String, Stats> stats = new HashMap<>();
+            departments.forEach((name, dept) -> {
+                synchronized (dept) {
+                    if (dept.count > 0) {
+                        stats.put(name, dept.stats());
+                    }
+                }
+            });
+            return stats;
+        } finally {
+            cut.writeLock().unlock();
+        }
+    }
+
+    // One department's current aggregates, if it has employees
+    public Optional<Stats> get(String department) {
+        Department dept = departments.get(department);
+        if (dept == null) {
+            return Optional.empty();
+        }
+        synchronized (dept) {
+            return dept.count > 0 ? Optional.of(dept.stats()) : Optional.empty();
+        }
+    }
+
+    // Problem 13: groupingBy(getDepartment, counting())
+    public Map<String, Long> counts() {
+        Map<String, Long> counts = new HashMap<>();
+        snapshot().forEach((dept, s) -> counts.put(dept, s.getCount()));
+        return counts;
+    }
+
+    // Problem 6: groupingBy(getDepartment, summingDouble(getSalary))
+    public Map<String, Double> totalSalaries() {
+        Map<String, Double> totals = new HashMap<>();
+        snapshot().forEach((dept, s) -> totals.put(dept, s.getTotalSalary()));
+        return totals;
+    }
+
+    // Problem 11: groupingBy(getDepartment, averagingDouble(getAge))
+    public Map<String, Double> averageAges() {
+        Map<String, Double> averages = new HashMap<>();
+        snapshot().forEach((dept, s) -> averages.put(dept, s.getAverageAge()));
+        return averages;
+    }
+
+    // Employee.ChangeListener: e still has its old values, the arguments are the new ones
+    private void changing(Employee e, int age, double salary, String department) {
+        Objects.requireNonNull(department, "department");
+        cut.readLock().lock();
+        try {
+            synchronized (e) {
+                if (!members.contains(e)) {
+                    return;
+                }
+                Department from = department(e.getDepartment());
+                if (department.equals(e.getDepartment())) {
+                    synchronized (from) {
+                        from.totalAge += age - e.getAge();
+                        if (Double.compare(salary, e.getSalary()) != 0) {
+                            from.changeSalary(e.getSalary(), salary);
+                        }
+                    }
+                    return;
+                }
+                Department to = department(department);
+                // Name order, so two opposite transfers cannot deadlock
+                Department first = from.name.compareTo(to.name) < 0 ? from : to;
+                Department second = first == from ? to : from;
+                synchronized (first) {
+                    synchronized (second) {
+                        from.remove(e.getSalary(), e.getAge());
+                        to.add(salary, age);
+                    }
+                }
+            }
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    private Department department(String name) {
+        return departments.computeIfAbsent(name, Department::new);
+    }
+
+    private void checkTracked(Employee e) {
+        if (!members.contains(e)) {
+            throw new IllegalArgumentException("Employee is not tracked: " + e);
+        }
+    }
+
+    // Mutable running aggregates; guarded by its own monitor
+    private static final class Department {
+        private final String name;
+        private long count;
+        private double totalSalary;
+        private long totalAge;
+        // Salary -> number of employees earning it, for min/max after removals
+        private final TreeMap<Double, Integer> salaries = new TreeMap<>();
+
+        Department(String name) {
+            this.name = name;
+        }
+
+        void add(double salary, int age) {
+            count++;
+            totalSalary += salary;
+            totalAge += age;
+            salaries.merge(salary, 1, Integer::sum);
+        }
+
+        void remove(double salary, int age) {
+            count--;
+            totalSalary -= salary;
+            totalAge -= age;
+            salaries.computeIfPresent(salary, (s, n) -> n == 1 ? null : n - 1);
+            if (count == 0) {
+                // Start the next employee from an exact zero
+                totalSalary = 0;
+            }
+        }
+
+        void changeSalary(double from, double to) {
+            totalSalary += to - from;
+            salaries.computeIfPresent(from, (s, n) -> n == 1 ? null : n - 1);
+            salaries.merge(to, 1, Integer::sum);
+        }
+
+        Stats stats() {
+            return new Stats(count, totalSalary, salaries.firstKey(), salaries.lastKey(), totalAge);
+        }
+    }
+
+    public static final class Stats {
+        private final long count;
+        private final double totalSalary;
+        private final double minSalary;
+        private final double maxSalary;
+        private final long totalAge;
+
+        Stats(long count, double totalSalary, double minSalary, double maxSalary, long totalAge) {
+            this.count = count;
+            this.totalSalary = totalSalary;
+            this.minSalary = minSalary;
+            this.maxSalary = maxSalary;
+            this.totalAge = totalAge;
+        }
+
+        public long getCount() { return count; }
+        public double getTotalSalary() { return totalSalary; }
+        public double getMinSalary() { return minSalary; }
+        public double getMaxSalary() { return maxSalary; }
+        public long getTotalAge() { return totalAge; }
+        public double getAverageSalary() { return totalSalary / count; }
+        public double getAverageAge() { return (double) totalAge / count; }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, total salary=%.2f, min=%.2f, max=%.2f, avg age=%.1f",
+                count, totalSalary, minSalary, maxSalary, getAverageAge());
+        }
+    }
+}
@@ -0,0 +1,530 @@
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Flow.Processor from EmployeeEvents to periodic per-department updates.
+// Each event is applied as a delta by type:
+//   HIRE           +1 employee, +salary, +age in its department
+//   TRANSFER       the same moved from the previous department to the new one
+//   SALARY_CHANGE  +(salary - previous salary) in its department
+// The running sum of those deltas is the current state: employee count
+// (Problem 13), total salary (Problem 6) and average age (Problem 11) per
+// department, starting from the Builder's initial employees.
+//
+// A window reports, per department touched by its events: the number of
+// events, the net employee count change (Problem 13 over the window), the
+// net total salary change (Problem 6) and the average age of the employees
+// those events were about (Problem 11). A transfer counts for both the
+// department left and the one joined.
+//
+// Windows are in event time: an event falls in the windows containing its
+// getTime(), so a replayed log lands where it originally happened. The
+// pipeline's time is the latest event time seen (never moving backwards),
+// or the optional processing-time clock if that is ahead, so windows also
+// roll over while a live feed is idle. Two windows, both aligned to
+// multiples of their length since the epoch:
+// - tumbling: the current window so far, and the last completed one;
+// - sliding: the last `size`, kept as size/slide buckets in a ring.
+// A late event still goes into the completed tumbling window or a sliding
+// bucket while those cover its time; older than that, it only changes the
+// current state and is counted in lateEvents().
+// An event updates one or two departments in the current state, its
+// tumbling window and its bucket, so it costs O(1), plus amortised array
+// growth when a department is first seen. The ring is summed only when an
+// update is built, on the emit schedule, never per event.
+//
+// Backpressure: events are requested from upstream in batches, and more
+// only once half a batch has been processed, so a SubmissionPublisher
+// feeding the pipeline blocks its producers when its buffer fills.
+// Updates are offered downstream without blocking; a subscriber that is
+// behind misses that update (see droppedUpdates()) and gets the next one,
+// which supersedes it.
+public class DepartmentWindowPipeline
+        implements Flow.Processor<EmployeeEvent, DepartmentWindowPipeline.Update>, AutoCloseable {
+    private final long tumblingMillis;
+    private final long slideMillis;
+    private final int bucketCount;
+    private final long emitMillis;
+    private final int batchSize;
+    private final LongSupplier clock;
+
+    private final SubmissionPublisher<Update> publisher = new SubmissionPublisher<>();
+    private final LongAdder droppedUpdates = new LongAdder();
+    private ScheduledExecutorService scheduler;
+    private Flow.Subscription subscription;
+    private int outstanding;
+
+    // Guarded by lock: written by onNext, read by the emit schedule
+    private final Object lock = new Object();
+    private final Map<String, Integer> departmentCodes = new HashMap<>();
+    private final List<String> departments = new ArrayList<>();
+    private final Totals current = new Totals();
+    private Totals tumbling = new Totals();
+    private Totals completed = new Totals();
+    private long tumblingWindow = Long.MIN_VALUE;
+    private final Totals[] buckets;
+    private final long[] bucketIds;
+    private long events;
+    private long lateEvents;
+    // Epoch before the first event
+    private long lastNow;
+
+    private DepartmentWindowPipeline(Builder b) {
+        this.tumblingMillis = b.tumblingMillis;
+        this.slideMillis = b.slideMillis;
+        this.bucketCount = (int) (b.slidingMillis / b.slideMillis);
+        this.emitMillis = b.emitMillis;
+        this.batchSize = b.batchSize;
+        this.clock = b.clock;
+        this.buckets = new Totals[bucketCount];
+        this.bucketIds = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Totals();
+            bucketIds[i] = Long.MIN_VALUE;
+        }
+        for (Employee e : b.initial) {
+            current.add(code(e.getDepartment()), 0, 1, e.getSalary(), e.getAge());
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // ---------- Flow.Subscriber (upstream events) ----------
+
+    @Override
+    public void onSubscribe(Flow.Subscription s) {
+        if (subscription != null) {
+            s.cancel();
+            return;
+        }
+        subscription = s;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "department-windows");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::emit, emitMillis, emitMillis, TimeUnit.MILLISECONDS);
+        outstanding = batchSize;
+        s.request(batchSize);
+    }
+
+    @Override
+    public void onNext(EmployeeEvent event) {
+        accept(event);
+        if (--outstanding <= batchSize / 2) {
+            subscription.request(batchSize - outstanding);
+            outstanding = batchSize;
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        stopSchedule();
+        publisher.closeExceptionally(t);
+    }
+
+    // Emits a last update, then completes downstream subscribers
+    @Override
+    public void onComplete() {
+        stopSchedule();
+        emit();
+        publisher.close();
+    }
+
+    // ---------- Flow.Publisher (downstream updates) ----------
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Update> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    public long droppedUpdates() {
+        return droppedUpdates.sum();
+    }
+
+    @Override
+    public void close() {
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        stopSchedule();
+        publisher.close();
+    }
+
+    // ---------- aggregation ----------
+
+    // O(1) per event; also usable without Flow, e.g. when replaying a log
+    public void accept(EmployeeEvent event) {
+        synchronized (lock) {
+            long time = event.getTime();
+            advance(time);
+            Totals window = tumblingFor(time);
+            Totals bucket = bucketFor(time);
+            if (window == null && bucket == null) {
+                lateEvents++;
+            }
+            int to = code(event.getDepartment());
+            int age = event.getAge();
+            switch (event.getType()) {
+                case HIRE -> apply(window, bucket, to, 1, event.getSalary(), age, age);
+                case TRANSFER -> {
+                    apply(window, bucket, code(event.getPreviousDepartment()), -1, -event.getSalary(), -age, age);
+                    apply(window, bucket, to, 1, event.getSalary(), age, age);
+                }
+                case SALARY_CHANGE -> apply(window, bucket, to, 0, event.getSalary() - event.getPreviousSalary(), 0, age);
+            }
+            events++;
+        }
+    }
+
+    // The current state takes the age delta; windows (null if the event is
+    // too late for them) take the age of the employee the event is about
+    private void apply(Totals window, Totals bucket, int code, long employees, double salary, long ageDelta, int age) {
+        current.add(code, 0, employees, salary, ageDelta);
+        if (window != null) {
+            window.add(code, 1, employees, salary, age);
+        }
+        if (bucket != null) {
+            bucket.add(code, 1, employees, salary, age);
+        }
+    }
+
+    // The tumbling window holding time, if it is the current or the completed one
+    private Totals tumblingFor(long time) {
+        long window = time / tumblingMillis;
+        return window == tumblingWindow ? tumbling : window == tumblingWindow - 1 ? completed : null;
+    }
+
+    // The ring bucket holding time, if it is still inside the sliding window
+    private Totals bucketFor(long time) {
+        long bucket = time / slideMillis;
+        if (bucket <= lastNow / slideMillis - bucketCount) {
+            return null;
+        }
+        int slot = (int) Math.floorMod(bucket, (long) bucketCount);
+        if (bucketIds[slot] != bucket) {
+            // An older bucket that expired without being reused
+            buckets[slot].clear();
+            bucketIds[slot] = bucket;
+        }
+        return buckets[slot];
+    }
+
+    // Events older than both the completed tumbling window and the sliding
+    // window; they are in the current state but in no window
+    public long lateEvents() {
+        synchronized (lock) {
+            return lateEvents;
+        }
+    }
+
+    private int code(String department) {
+        return departmentCodes.computeIfAbsent(Objects.requireNonNull(department, "department"), d -> {
+            departments.add(d);
+            return departments.size() - 1;
+        });
+    }
+
+    // Current state of both windows, as of the pipeline's time
+    public Update snapshot() {
+        synchronized (lock) {
+            long now = advance(clock != null ? clock.getAsLong() : lastNow);
+            long window = now / tumblingMillis;
+            long bucket = now / slideMillis;
+            Totals sliding = new Totals();
+            for (int i = 0; i < bucketCount; i++) {
+                if (bucketIds[i] > bucket - bucketCount) {
+                    sliding.addAll(buckets[i]);
+                }
+            }
+            return new Update(now, events, toStats(current),
+                window * tumblingMillis, toChanges(tumbling),
+                (window - 1) * tumblingMillis, toChanges(completed),
+                (bucket - bucketCount + 1) * slideMillis, toChanges(sliding));
+        }
+    }
+
+    private void emit() {
+        publisher.offer(snapshot(), (subscriber, update) -> {
+            droppedUpdates.increment();
+            return false;
+        });
+    }
+
+    // Rolls the tumbling window and recycles ring buckets that have expired.
+    // Time never moves backwards here, even for late events or if the clock does
+    private long advance(long now) {
+        if (now < lastNow) {
+            now = lastNow;
+        }
+        lastNow = now;
+        long window = now / tumblingMillis;
+        if (window != tumblingWindow) {
+            Totals finished = tumbling;
+            tumbling = completed;
+            tumbling.clear();
+            completed = finished;
+            if (window != tumblingWindow + 1) {
+                completed.clear(); // the window before this one had no events
+            }
+            tumblingWindow = window;
+        }
+        long bucket = now / slideMillis;
+        int slot = (int) Math.floorMod(bucket, (long) bucketCount);
+        if (bucketIds[slot] != bucket) {
+            buckets[slot].clear();
+            bucketIds[slot] = bucket;
+        }
+        return now;
+    }
+
+    // Departments that currently have employees
+    private Map<String, DepartmentStats> toStats(Totals totals) {
+        Map<String, DepartmentStats> stats = new TreeMap<>();
+        for (int code = 0; code < totals.count.length; code++) {
+            if (totals.count[code] > 0) {
+                stats.put(departments.get(code),
+                    new DepartmentStats(totals.count[code], totals.salary[code], totals.age[code]));
+            }
+        }
+        return stats;
+    }
+
+    // Departments with at least one event in the window
+    private Map<String, DepartmentChange> toChanges(Totals totals) {
+        Map<String, DepartmentChange> changes = new TreeMap<>();
+        for (int code = 0; code < totals.count.length; code++) {
+            if (totals.events[code] > 0) {
+                changes.put(departments.get(code),
+                    new DepartmentChange(totals.events[code], totals.count[code], totals.salary[code], totals.age[code]));
+            }
+        }
+        return changes;
+    }
+
+    private void stopSchedule() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Per-department sums of deltas, indexed by department code; events
+    // counts the events that touched the department. In the current state
+    // age is the total age; in a window, the summed age of the employees
+    // its events were about
+    private static final class Totals {
+        long[] events = new long[8];
+        long[] count = new long[8];
+        double[] salary = new double[8];
+        long[] age = new long[8];
+
+        void add(int code, long e, long c, double s, long a) {
+            if (code >= count.length) {
+                grow(Math.max(code + 1, count.length * 2));
+            }
+            events[code] += e;
+            count[code] += c;
+            salary[code] += s;
+            age[code] += a;
+        }
+
+        void addAll(Totals other) {
+            if (other.count.length > count.length) {
+                grow(other.count.length);
+            }
+            for (int code = 0; code < other.count.length; code++) {
+                events[code] += other.events[code];
+                count[code] += other.count[code];
+                salary[code] += other.salary[code];
+                age[code] += other.age[code];
+            }
+        }
+
+        void clear() {
+            Arrays.fill(events, 0);
+            Arrays.fill(count, 0);
+            Arrays.fill(salary, 0);
+            Arrays.fill(age, 0);
+        }
+
+        private void grow(int capacity) {
+            events = Arrays.copyOf(events, capacity);
+            count = Arrays.copyOf(count, capacity);
+            salary = Arrays.copyOf(salary, capacity);
+            age = Arrays.copyOf(age, capacity);
+        }
+    }
+
+    // A department's current state
+    public static final class DepartmentStats {
+        private final long count;
+        private final double totalSalary;
+        private final long totalAge;
+
+        DepartmentStats(long count, double totalSalary, long totalAge) {
+            this.count = count;
+            this.totalSalary = totalSalary;
+            this.totalAge = totalAge;
+        }
+
+        public long getCount() { return count; }
+        public double getTotalSalary() { return totalSalary; }
+        public double getAverageAge() { return count > 0 ? (double) totalAge / count : 0; }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, total salary=%.2f, avg age=%.1f", count, totalSalary, getAverageAge());
+        }
+    }
+
+    // A department over a window: its events, the net employee change (hires
+    // and transfers in minus transfers out), the salary added by hires,
+    // transfers and raises, and the average age of the employees involved
+    public static final class DepartmentChange {
+        private final long events;
+        private final long employeeChange;
+        private final double salaryChange;
+        private final long totalAge;
+
+        DepartmentChange(long events, long employeeChange, double salaryChange, long totalAge) {
+            this.events = events;
+            this.employeeChange = employeeChange;
+            this.salaryChange = salaryChange;
+            this.totalAge = totalAge;
+        }
+
+        public long getEvents() { return events; }
+        public long getEmployeeChange() { return employeeChange; }
+        public double getSalaryChange() { return salaryChange; }
+        public double getAverageAge() { return (double) totalAge / events; }
+
+        @Override
+        public String toString() {
+            return String.format("events=%d, employees %+d, salary %+.2f, avg age=%.1f",
+                events, employeeChange, salaryChange, getAverageAge());
+        }
+    }
+
+    // Window starts are epoch millis. Maps are sorted by department name:
+    // the current state lists departments with employees, each window those
+    // with at least one event in it
+    public static final class Update {
+        private final long time;
+        private final long events;
+        private final Map<String, DepartmentStats> departments;
+        private final long tumblingStart;
+        private final Map<String, DepartmentChange> tumbling;
+        private final long completedStart;
+        private final Map<String, DepartmentChange> completedTumbling;
+        private final long slidingStart;
+        private final Map<String, DepartmentChange> sliding;
+
+        Update(long time, long events, Map<String, DepartmentStats> departments,
+               long tumblingStart, Map<String, DepartmentChange> tumbling,
+               long completedStart, Map<String, DepartmentChange> completedTumbling,
+               long slidingStart, Map<String, DepartmentChange> sliding) {
+            this.time = time;
+            this.events = events;
+            this.departments = Collections.unmodifiableMap(departments);
+            this.tumblingStart = tumblingStart;
+            this.tumbling = Collections.unmodifiableMap(tumbling);
+            this.completedStart = completedStart;
+            this.completedTumbling = Collections.unmodifiableMap(completedTumbling);
+            this.slidingStart = slidingStart;
+            this.sliding = Collections.unmodifiableMap(sliding);
+        }
+
+        public long getTime() { return time; }
+        // Events processed since the pipeline started
+        public long getEvents() { return events; }
+        // Count, total salary and average age per department as of time
+        public Map<String, DepartmentStats> getDepartments() { return departments; }
+        public long getTumblingStart() { return tumblingStart; }
+        // The current tumbling window so far
+        public Map<String, DepartmentChange> getTumbling() { return tumbling; }
+        public long getCompletedStart() { return completedStart; }
+        // The tumbling window before the current one
+        public Map<String, DepartmentChange> getCompletedTumbling() { return completedTumbling; }
+        public long getSlidingStart() { return slidingStart; }
+        // Events from slidingStart up to now
+        public Map<String, DepartmentChange> getSliding() { return sliding; }
+
+        @Override
+        public String toString() {
+            return "Update @" + time + " (" + events + " events): departments=" + departments
+                + ", tumbling=" + tumbling + ", sliding=" + sliding;
+        }
+    }
+
+    public static class Builder {
+        private long tumblingMillis = 60_000;
+        private long slidingMillis = 300_000;
+        private long slideMillis = 60_000;
+        private long emitMillis = 1_000;
+        private int batchSize = 256;
+        private LongSupplier clock;
+        private List<Employee> initial = List.of();
+
+        // Employees already on staff when the event feed starts
+        public Builder initial(Collection<Employee> employees) {
+            initial = List.copyOf(employees);
+            return this;
+        }
+
+        public Builder tumbling(Duration size) {
+            tumblingMillis = positiveMillis(size);
+            return this;
+        }
+
+        // size must be a whole number of slides
+        public Builder sliding(Duration size, Duration slide) {
+            long sizeMillis = positiveMillis(size);
+            long slideBy = positiveMillis(slide);
+            if (sizeMillis % slideBy != 0) {
+                throw new IllegalArgumentException("Sliding window " + size + " is not a multiple of " + slide);
+            }
+            slidingMillis = sizeMillis;
+            slideMillis = slideBy;
+            return this;
+        }
+
+        public Builder emitEvery(Duration interval) {
+            emitMillis = positiveMillis(interval);
+            return this;
+        }
+
+        // Events requested from upstream at a time
+        public Builder batchSize(int events) {
+            if (events < 2) {
+                throw new IllegalArgumentException("Batch size must be at least 2: " + events);
+            }
+            batchSize = events;
+            return this;
+        }
+
+        // Processing-time clock, epoch millis, so windows roll over while no
+        // events arrive. Only for live feeds whose event times follow it: a
+        // replay would be late against it. By default there is none and
+        // windows move with event time alone
+        public Builder clock(LongSupplier millis) {
+            clock = millis;
+            return this;
+        }
+
+        public DepartmentWindowPipeline build() {
+            return new DepartmentWindowPipeline(this);
+        }
+
+        private static long positiveMillis(Duration d) {
+            long millis = d.toMillis();
+            if (millis <= 0) {
+                throw new IllegalArgumentException("Duration must be at least 1ms: " + d);
+            }
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Finds values that occur more than once, safely on parallel streams and in
+// memory that depends only on the expected count and false positive rate.
+//
+// Pass 1 adds every value to a counting Bloom filter with 2-bit saturating
+// counters (0, 1, 2 = "two or more"), updated with CAS, so it needs no locks.
+// Pass 2 sends only values whose counters all reached 2 to a concurrent set
+// that confirms the real duplicates. A true duplicate always passes the
+// filter, so nothing is missed; false positives are dropped by the set, which
+// only ever holds the (few) candidates instead of every distinct value.
+// null is a value like any other, as in a HashSet: it is reported once if
+// it occurs more than once.
+public class DuplicateDetector {
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray counters;
+    private final long numCounters;
+    private final int numHashes;
+
+    public DuplicateDetector(long expectedItems, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long n = Math.max(expectedItems, 1);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2)));
+        long words = (m + 31) / 32;
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filter too large for " + expectedItems + " items");
+        }
+        this.counters = new AtomicLongArray((int) words);
+        this.numCounters = words * 32;
+        this.numHashes = Math.max(1, (int) Math.round((double) numCounters / n * LN2));
+    }
+
+    // Problem 41: duplicates in a collection, scanned in parallel
+    public static Set<String> findDuplicates(Collection<String> values) {
+        return findDuplicates(values::parallelStream, values.size(), 0.01);
+    }
+
+    // The source is read twice, so it must yield the same values both times
+    public static Set<String> findDuplicates(Supplier<? extends Stream<String>> source,
+                                             long expectedItems, double falsePositiveRate) {
+        DuplicateDetector filter = new DuplicateDetector(expectedItems, falsePositiveRate);
+        source.get().forEach(filter::add);
+
+        // Concurrent sets cannot hold null, so nulls are counted on the side
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        Set<String> duplicates = ConcurrentHashMap.newKeySet();
+        AtomicInteger nulls = new AtomicInteger();
+        source.get()
+            .filter(filter::mightBeDuplicate)
+            .forEach(value -> {
+                if (value == null) {
+                    nulls.incrementAndGet();
+                } else if (!seen.add(value)) {
+                    duplicates.add(value);
+                }
+            });
+        Set<String> result = new HashSet<>(duplicates);
+        if (nulls.get() > 1) {
+            result.add(null);
+        }
+        return result;
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < numHashes; i++) {
+            increment(index(hash, i));
+        }
+    }
+
+    // True if value was added at least twice, or is a false positive
+    public boolean mightBeDuplicate(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < numHashes; i++) {
+            if (counter(index(hash, i)) < 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long memoryBytes() {
+        return (long) counters.length() * Long.BYTES;
+    }
+
+    private static long hash(String value) {
+        return value == null ? Hashing.NULL_HASH : Hashing.hash64(value);
+    }
+
+    // Double hashing over the full 64 bits, so filters past 2^32 counters stay uniform
+    private long index(long hash, int i) {
+        long step = Long.rotateLeft(hash, 32) | 1;
+        return Long.remainderUnsigned(hash + i * step, numCounters);
+    }
+
+    private void increment(long index) {
+        int word = (int) (index >>> 5);
+        int shift = (int) (index & 31) * 2;
+        while (true) {
+            long current = counters.get(word);
+            if (((current >>> shift) & 3) >= 2) {
+                return;
+            }
+            if (counters.compareAndSet(word, current, current + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private int counter(long index) {
+        return (int) ((counters.get((int) (index >>> 5)) >>> ((index & 31) * 2)) & 3);
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.Objects;
+
+// A change to one employee, as received from the HR feed. Carries the
+// employee's state after the change; a transfer also records the department
+// they left, and a salary change the salary before it, so consumers can
+// apply the change as a delta. The time (epoch millis) is when the change
+// happened, not when it was received, so a replayed or late feed can still
+// be placed in the right windows; it defaults to now.
+public class EmployeeEvent {
+    public enum Type { HIRE, TRANSFER, SALARY_CHANGE }
+
+    private final Type type;
+    private final String name;
+    private final int age;
+    private final double salary;
+    private final String department;
+    private final String previousDepartment;
+    private final double previousSalary;
+    private final long time;
+
+    private EmployeeEvent(Type type, String name, int age, double salary, String department,
+                          String previousDepartment, double previousSalary, long time) {
+        this.type = type;
+        this.name = name;
+        this.age = age;
+        this.salary = salary;
+        this.department = department;
+        this.previousDepartment = previousDepartment;
+        this.previousSalary = previousSalary;
+        this.time = time;
+    }
+
+    public static EmployeeEvent hire(Employee e) {
+        return hire(e, System.currentTimeMillis());
+    }
+
+    public static EmployeeEvent hire(Employee e, long time) {
+        return new EmployeeEvent(Type.HIRE, e.getName(), e.getAge(), e.getSalary(), e.getDepartment(), null,
+            e.getSalary(), time);
+    }
+
+    // e is already in its new department
+    public static EmployeeEvent transfer(Employee e, String fromDepartment) {
+        return transfer(e, fromDepartment, System.currentTimeMillis());
+    }
+
+    public static EmployeeEvent transfer(Employee e, String fromDepartment, long time) {
+        Objects.requireNonNull(fromDepartment, "fromDepartment");
+        return new EmployeeEvent(Type.TRANSFER, e.getName(), e.getAge(), e.getSalary(), e.getDepartment(),
+            fromDepartment, e.getSalary(), time);
+    }
+
+    // e still has its old salary
+    public static EmployeeEvent salaryChange(Employee e, double newSalary) {
+        return salaryChange(e, newSalary, System.currentTimeMillis());
+    }
+
+    public static EmployeeEvent salaryChange(Employee e, double newSalary, long time) {
+        return new EmployeeEvent(Type.SALARY_CHANGE, e.getName(), e.getAge(), newSalary, e.getDepartment(), null,
+            e.getSalary(), time);
+    }
+
+    public Type getType() { return type; }
+    public String getName() { return name; }
+    public int getAge() { return age; }
+    public double getSalary() { return salary; }
+    public String getDepartment() { return department; }
+    // null unless TRANSFER
+    public String getPreviousDepartment() { return previousDepartment; }
+    // Salary before a SALARY_CHANGE; equal to getSalary() for other types
+    public double getPreviousSalary() { return previousSalary; }
+    // When the change happened, epoch millis
+    public long getTime() { return time; }
+
+    @Override
+    public String toString() {
+        return type + " @" + time + " " + name + "( " + age + " ," + salary + " , "
+            + (previousDepartment != null ? previousDepartment + " -> " : "") + department + ")";
+    }
+}
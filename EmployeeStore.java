@@ -0,0 +1,285 @@
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Versioned employee store: writers commit new immutable versions, readers
+// query whichever version was current when they took their snapshot. A
+// groupingBy over a snapshot never sees half of an update, and it takes no
+// lock: snapshot() is one volatile read.
+//
+// Columns are split into CHUNK-row chunks. A commit copies only the chunks
+// it writes, each at most once per update(), plus those columns' chunk
+// tables, so a salary change costs O(rows / CHUNK + CHUNK) instead of
+// copying the whole store, and everything else is shared between versions.
+//
+// Writers are serialized by a lock; batch changes with update() so they
+// become visible together and share the copying. Old versions are not
+// tracked: the garbage collector reclaims each one as soon as no snapshot
+// refers to it, so a commit allocates nothing beyond the copied chunks.
+//
+//   long v = store.update(w -> { w.setSalary(id, 72000); w.setDepartment(id, "IT"); });
+//   EmployeeStore.Snapshot snapshot = store.snapshot();
+//   Map<String, Double> byDept = snapshot.stream()
+//       .collect(Collectors.groupingBy(Employee::getDepartment, Collectors.summingDouble(Employee::getSalary)));
+public class EmployeeStore {
+    static final int CHUNK_SHIFT = 10;
+    static final int CHUNK = 1 << CHUNK_SHIFT;
+    private static final int MASK = CHUNK - 1;
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot current = new Snapshot(0, 0, new String[0][], new int[0][], new double[0][], new String[0][]);
+
+    public static EmployeeStore of(Collection<Employee> employees) {
+        EmployeeStore store = new EmployeeStore();
+        store.update(w -> employees.forEach(w::add));
+        return store;
+    }
+
+    // Current version; never blocks, and stays consistent however long it is held
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    public long version() {
+        return current.version;
+    }
+
+    // Applies all changes as one new version and returns its number. If the
+    // writer throws, nothing is committed.
+    public long update(Consumer<Writer> changes) {
+        synchronized (writeLock) {
+            Writer writer = new Writer(current);
+            changes.accept(writer);
+            current = writer.commit();
+            return current.version;
+        }
+    }
+
+    public int add(Employee e) {
+        int[] id = new int[1];
+        update(w -> id[0] = w.add(e));
+        return id[0];
+    }
+
+    public long setSalary(int id, double salary) {
+        return update(w -> w.setSalary(id, salary));
+    }
+
+    public long setDepartment(int id, String department) {
+        return update(w -> w.setDepartment(id, department));
+    }
+
+    public long setAge(int id, int age) {
+        return update(w -> w.setAge(id, age));
+    }
+
+    public long setName(int id, String name) {
+        return update(w -> w.setName(id, name));
+    }
+
+    // One immutable version. Rows are numbered from 0 in the order they were added.
+    public static final class Snapshot {
+        private final long version;
+        private final int size;
+        private final String[][] names;
+        private final int[][] ages;
+        private final double[][] salaries;
+        private final String[][] departments;
+
+        Snapshot(long version, int size, String[][] names, int[][] ages, double[][] salaries, String[][] departments) {
+            this.version = version;
+            this.size = size;
+            this.names = names;
+            this.ages = ages;
+            this.salaries = salaries;
+            this.departments = departments;
+        }
+
+        public long version() { return version; }
+        public int size() { return size; }
+
+        public String getName(int row) { return names[chunk(row)][row & MASK]; }
+        public int getAge(int row) { return ages[chunk(row)][row & MASK]; }
+        public double getSalary(int row) { return salaries[chunk(row)][row & MASK]; }
+        public String getDepartment(int row) { return departments[chunk(row)][row & MASK]; }
+
+        // A detached copy; its setters do not touch the store
+        public Employee toEmployee(int row) {
+            int c = chunk(row);
+            int i = row & MASK;
+            return new Employee(names[c][i], ages[c][i], salaries[c][i], departments[c][i]);
+        }
+
+        // Sequential; parallel() splits on block boundaries (see RowSpliterators).
+        // A snapshot's chunks are never written again, hence IMMUTABLE
+        public Stream<Employee> stream() {
+            return StreamSupport.stream(
+                RowSpliterators.rows(size, this::toEmployee, Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+        }
+
+        public List<Employee> toList() {
+            List<Employee> employees = new ArrayList<>(size);
+            for (int row = 0; row < size; row++) {
+                employees.add(toEmployee(row));
+            }
+            return employees;
+        }
+
+        // Columnar copy for the PersonTable kernels and indexes
+        public PersonTable toTable() {
+            PersonTable.Builder builder = PersonTable.builder(size);
+            for (int row = 0; row < size; row++) {
+                int c = chunk(row);
+                int i = row & MASK;
+                builder.add(names[c][i], ages[c][i], salaries[c][i], departments[c][i]);
+            }
+            return builder.build();
+        }
+
+        private int chunk(int row) {
+            Objects.checkIndex(row, size);
+            return row >>> CHUNK_SHIFT;
+        }
+    }
+
+    // Changes for one update(); copies a chunk the first time it is written
+    public static final class Writer {
+        private static final int NAME = 0;
+        private static final int AGE = 1;
+        private static final int SALARY = 2;
+        private static final int DEPARTMENT = 3;
+        private static final int COLUMNS = 4;
+
+        private final Snapshot base;
+        private int size;
+        private String[][] names;
+        private int[][] ages;
+        private double[][] salaries;
+        private String[][] departments;
+        // Bit c * COLUMNS + column: chunk c of that column is this update's own
+        private final BitSet copied = new BitSet();
+        private final boolean[] tableCopied = new boolean[COLUMNS];
+        private boolean changed;
+
+        Writer(Snapshot base) {
+            this.base = base;
+            this.size = base.size;
+            this.names = base.names;
+            this.ages = base.ages;
+            this.salaries = base.salaries;
+            this.departments = base.departments;
+        }
+
+        public int size() { return size; }
+
+        // Reads see this update's earlier changes
+        public Employee get(int id) {
+            checkId(id);
+            int c = id >>> CHUNK_SHIFT;
+            int i = id & MASK;
+            return new Employee(names[c][i], ages[c][i], salaries[c][i], departments[c][i]);
+        }
+
+        public double getSalary(int id) {
+            checkId(id);
+            return salaries[id >>> CHUNK_SHIFT][id & MASK];
+        }
+
+        public int add(Employee e) {
+            return add(e.getName(), e.getAge(), e.getSalary(), e.getDepartment());
+        }
+
+        // Returns the new employee's id
+        public int add(String name, int age, double salary, String department) {
+            int id = size;
+            int c = id >>> CHUNK_SHIFT;
+            if (c == names.length) {
+                grow();
+            }
+            size++;
+            int i = id & MASK;
+            touch(NAME, c);
+            touch(AGE, c);
+            touch(SALARY, c);
+            touch(DEPARTMENT, c);
+            names[c][i] = name;
+            ages[c][i] = age;
+            salaries[c][i] = salary;
+            departments[c][i] = department;
+            return id;
+        }
+
+        public void setName(int id, String name) {
+            checkId(id);
+            int c = touch(NAME, id >>> CHUNK_SHIFT);
+            names[c][id & MASK] = name;
+        }
+
+        public void setAge(int id, int age) {
+            checkId(id);
+            int c = touch(AGE, id >>> CHUNK_SHIFT);
+            ages[c][id & MASK] = age;
+        }
+
+        public void setSalary(int id, double salary) {
+            checkId(id);
+            int c = touch(SALARY, id >>> CHUNK_SHIFT);
+            salaries[c][id & MASK] = salary;
+        }
+
+        public void setDepartment(int id, String department) {
+            checkId(id);
+            int c = touch(DEPARTMENT, id >>> CHUNK_SHIFT);
+            departments[c][id & MASK] = department;
+        }
+
+        // Gives this update its own copy of chunk c of one column (and of
+        // that column's chunk table) on first write; returns c. Call it
+        // before reading the column field: it replaces the arrays.
+        private int touch(int column, int c) {
+            changed = true;
+            if (!tableCopied[column]) {
+                switch (column) {
+                    case NAME -> names = names.clone();
+                    case AGE -> ages = ages.clone();
+                    case SALARY -> salaries = salaries.clone();
+                    default -> departments = departments.clone();
+                }
+                tableCopied[column] = true;
+            }
+            int flag = c * COLUMNS + column;
+            if (!copied.get(flag)) {
+                switch (column) {
+                    case NAME -> names[c] = names[c] == null ? new String[CHUNK] : names[c].clone();
+                    case AGE -> ages[c] = ages[c] == null ? new int[CHUNK] : ages[c].clone();
+                    case SALARY -> salaries[c] = salaries[c] == null ? new double[CHUNK] : salaries[c].clone();
+                    default -> departments[c] = departments[c] == null ? new String[CHUNK] : departments[c].clone();
+                }
+                copied.set(flag);
+            }
+            return c;
+        }
+
+        // Room for more chunks; new slots start empty and are allocated by touch()
+        private void grow() {
+            int chunks = Math.max(4, names.length * 2);
+            names = Arrays.copyOf(names, chunks);
+            ages = Arrays.copyOf(ages, chunks);
+            salaries = Arrays.copyOf(salaries, chunks);
+            departments = Arrays.copyOf(departments, chunks);
+            Arrays.fill(tableCopied, true);
+        }
+
+        private void checkId(int id) {
+            Objects.checkIndex(id, size);
+        }
+
+        Snapshot commit() {
+            if (!changed) {
+                return base;
+            }
+            return new Snapshot(base.version + 1, size, names, ages, salaries, departments);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Reader and writer throughput under contention: reader threads run the
+// total-salary-by-department groupingBy (Problem 6) over and over while one
+// writer moves salary between two random employees, for a fixed time.
+// Both queries are the same plain loop over department and salary, so the
+// numbers differ only in how readers and the writer are kept apart.
+//   lock  ArrayList of mutable Employees behind a ReentrantReadWriteLock;
+//         every query holds the read lock, every transfer the write lock
+//   mvcc  EmployeeStore; queries read a snapshot's columns directly,
+//         transfers are one update()
+// Usage: java EmployeeStoreBenchmark [rows] [readers] [seconds]
+public class EmployeeStoreBenchmark {
+    private static final String[] DEPARTMENTS = {"IT", "HR", "Finance", "Sales", "Legal", "Ops", "R&D", "Support"};
+
+    public static void main(String[] args) throws InterruptedException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        List<Employee> employees = generate(rows, 42);
+
+        System.out.println("===== EmployeeStore (MVCC) vs read-write lock =====");
+        System.out.println("Rows: " + rows + ", Readers: " + readers + ", Seconds: " + seconds + "\n");
+
+        Workload lock = new LockedList(employees);
+        Workload mvcc = new Versioned(EmployeeStore.of(employees));
+        // Short untimed round each to warm up both code paths
+        measure(lock, readers, 1);
+        measure(mvcc, readers, 1);
+        report("lock", measure(lock, readers, seconds), seconds);
+        report("mvcc", measure(mvcc, readers, seconds), seconds);
+    }
+
+    private static List<Employee> generate(int rows, long seed) {
+        Random random = new Random(seed);
+        List<Employee> employees = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            employees.add(new Employee("E" + i, 22 + random.nextInt(40),
+                30000 + random.nextInt(120) * 1000, DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]));
+        }
+        return employees;
+    }
+
+    // Returns {reads, writes}
+    private static long[] measure(Workload workload, int readers, int seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            threads.add(Thread.ofPlatform().name("reader-" + r).start(() -> {
+                awaitStart(start);
+                while (running.get()) {
+                    if (workload.query().isEmpty()) {
+                        throw new IllegalStateException("Empty query result");
+                    }
+                    reads.increment();
+                }
+            }));
+        }
+        threads.add(Thread.ofPlatform().name("writer").start(() -> {
+            awaitStart(start);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+                workload.transfer(random.nextInt(workload.size()), random.nextInt(workload.size()), 100);
+                writes.increment();
+            }
+        }));
+        start.countDown();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread t : threads) {
+            t.join();
+        }
+        return new long[] {reads.sum(), writes.sum()};
+    }
+
+    private static void awaitStart(CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void report(String label, long[] counts, int seconds) {
+        System.out.println(String.format("  %-6s reads: %10.1f /s   writes: %12.1f /s",
+            label, (double) counts[0] / seconds, (double) counts[1] / seconds));
+    }
+
+    private interface Workload {
+        int size();
+        Map<String, Double> query();
+        void transfer(int from, int to, double amount);
+    }
+
+    private static final class LockedList implements Workload {
+        private final List<Employee> employees = new ArrayList<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        LockedList(List<Employee> source) {
+            for (Employee e : source) {
+                employees.add(new Employee(e.getName(), e.getAge(), e.getSalary(), e.getDepartment()));
+            }
+        }
+
+        public int size() {
+            return employees.size();
+        }
+
+        public Map<String, Double> query() {
+            lock.readLock().lock();
+            try {
+                Map<String, Double> totals = new HashMap<>();
+                for (Employee e : employees) {
+                    totals.merge(e.getDepartment(), e.getSalary(), Double::sum);
+                }
+                return totals;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        public void transfer(int from, int to, double amount) {
+            lock.writeLock().lock();
+            try {
+                Employee a = employees.get(from);
+                Employee b = employees.get(to);
+                a.setSalary(a.getSalary() - amount);
+                b.setSalary(b.getSalary() + amount);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static final class Versioned implements Workload {
+        private final EmployeeStore store;
+
+        Versioned(EmployeeStore store) {
+            this.store = store;
+        }
+
+        public int size() {
+            return store.snapshot().size();
+        }
+
+        public Map<String, Double> query() {
+            EmployeeStore.Snapshot snapshot = store.snapshot();
+            Map<String, Double> totals = new HashMap<>();
+            for (int row = 0; row < snapshot.size(); row++) {
+                totals.merge(snapshot.getDepartment(row), snapshot.getSalary(row), Double::sum);
+            }
+            return totals;
+        }
+
+        public void transfer(int from, int to, double amount) {
+            store.update(w -> {
+                w.setSalary(from, w.getSalary(from) - amount);
+                w.setSalary(to, w.getSalary(to) + amount);
+            });
+        }
+    }
+}
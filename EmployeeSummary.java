@@ -0,0 +1,98 @@
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collector;
+
+// Problem 78: summary of count, salary and age, safe to share between threads.
+// Every field is a striped adder/accumulator, so a CONCURRENT collector can
+// call accept from all worker threads on a single instance without losing
+// updates or contending on one cache line.
+//
+// The salary total is kept in whole cents in a LongAdder: each salary is
+// rounded to the nearest cent once, and integer addition makes the total
+// exact and independent of thread interleaving (a DoubleAdder is neither
+// once salaries have fractions). For salaries already in whole cents, as in
+// all the problem data, the total is the exact sum. Counts, age totals and
+// min/max are exact as well. EmployeeSummaryStress checks this under
+// contention.
+public class EmployeeSummary {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalSalaryCents = new LongAdder();
+    private final LongAdder totalAge = new LongAdder();
+    private final DoubleAccumulator minSalary = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+    private final DoubleAccumulator maxSalary = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+    private final LongAccumulator minAge = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxAge = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    // CONCURRENT needs UNORDERED as well, otherwise ordered parallel streams
+    // fall back to one container per split
+    public static Collector<Person, EmployeeSummary, EmployeeSummary> collector() {
+        return Collector.of(
+            EmployeeSummary::new,
+            EmployeeSummary::accept,
+            EmployeeSummary::combine,
+            Collector.Characteristics.CONCURRENT,
+            Collector.Characteristics.UNORDERED,
+            Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public void accept(Person p) {
+        count.increment();
+        totalSalaryCents.add(toCents(p.getSalary()));
+        totalAge.add(p.getAge());
+        minSalary.accumulate(p.getSalary());
+        maxSalary.accumulate(p.getSalary());
+        minAge.accumulate(p.getAge());
+        maxAge.accumulate(p.getAge());
+    }
+
+    public EmployeeSummary combine(EmployeeSummary other) {
+        if (other == this) {
+            return this;
+        }
+        count.add(other.count.sum());
+        totalSalaryCents.add(other.totalSalaryCents.sum());
+        totalAge.add(other.totalAge.sum());
+        minSalary.accumulate(other.minSalary.get());
+        maxSalary.accumulate(other.maxSalary.get());
+        minAge.accumulate(other.minAge.get());
+        maxAge.accumulate(other.maxAge.get());
+        return this;
+    }
+
+    public long getCount() { return count.sum(); }
+    public long getTotalSalaryCents() { return totalSalaryCents.sum(); }
+    public double getTotalSalary() { return getTotalSalaryCents() / 100.0; }
+    public long getTotalAge() { return totalAge.sum(); }
+
+    // Min/max return 0 for an empty summary
+    public double getMinSalary() { return getCount() > 0 ? minSalary.get() : 0; }
+    public double getMaxSalary() { return getCount() > 0 ? maxSalary.get() : 0; }
+    public int getMinAge() { return getCount() > 0 ? (int) minAge.get() : 0; }
+    public int getMaxAge() { return getCount() > 0 ? (int) maxAge.get() : 0; }
+
+    public double getAverageSalary() {
+        long n = getCount();
+        return n > 0 ? getTotalSalary() / n : 0;
+    }
+
+    public double getAverageAge() {
+        long n = getCount();
+        return n > 0 ? (double) getTotalAge() / n : 0;
+    }
+
+    // Nearest whole cent; salaries beyond about 9e16 dollars are out of range
+    static long toCents(double salary) {
+        double cents = Math.rint(salary * 100);
+        if (!(Math.abs(cents) < 0x1p63)) {
+            throw new IllegalArgumentException("Salary out of range: " + salary);
+        }
+        return (long) cents;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Employees: %d, Avg Salary: %.2f, Avg Age: %.1f",
+            getCount(), getAverageSalary(), getAverageAge());
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stress check for EmployeeSummary under heavy contention: every total
+// must match a sequential reference exactly, on every round.
+//   collect  parallel streams with CONCURRENT collector() on an
+//            oversubscribed ForkJoinPool, so all workers share one summary
+//   accept   plain threads hammering accept() on one shared instance
+// Salaries include cent fractions, so a floating-point total would drift.
+// Prints the first mismatch and exits with status 1; exits 0 when clean.
+// Usage: java EmployeeSummaryStress [rows] [rounds] [threads]
+public class EmployeeSummaryStress {
+    public static void main(String[] args) throws InterruptedException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+            : Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+
+        List<Person> persons = generate(rows, 42);
+        EmployeeSummary expected = new EmployeeSummary();
+        persons.forEach(expected::accept);
+        System.out.println("Rows: " + rows + ", Rounds: " + rounds + ", Threads: " + threads);
+        System.out.println("Expected: " + describe(expected));
+
+        int failures = 0;
+        try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+            for (int round = 0; round < rounds; round++) {
+                EmployeeSummary actual = pool.submit(() -> persons.parallelStream()
+                    .collect(EmployeeSummary.collector())).join();
+                failures += check("collect round " + round, expected, actual);
+            }
+        }
+        for (int round = 0; round < rounds; round++) {
+            failures += check("accept round " + round, expected, acceptConcurrently(persons, threads));
+        }
+
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " of " + (2 * rounds) + " rounds");
+            System.exit(1);
+        }
+        System.out.println("OK: " + (2 * rounds) + " rounds matched exactly");
+    }
+
+    // Salaries with random cents and extreme values at random positions
+    private static List<Person> generate(int rows, long seed) {
+        Random random = new Random(seed);
+        List<Person> persons = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            double salary = (2_000_000 + random.nextInt(20_000_000)) / 100.0;
+            if (random.nextInt(100_000) == 0) {
+                salary = random.nextBoolean() ? 0.01 : 9_999_999.99;
+            }
+            persons.add(new Person("Name" + i, 18 + random.nextInt(50), salary, "Dept" + random.nextInt(16)));
+        }
+        return persons;
+    }
+
+    // threads workers pull small batches of rows and accept them one by one
+    private static EmployeeSummary acceptConcurrently(List<Person> persons, int threads) throws InterruptedException {
+        EmployeeSummary summary = new EmployeeSummary();
+        AtomicInteger next = new AtomicInteger();
+        int batch = 64;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                for (int from; (from = next.getAndAdd(batch)) < persons.size(); ) {
+                    for (int i = from, end = Math.min(from + batch, persons.size()); i < end; i++) {
+                        summary.accept(persons.get(i));
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return summary;
+    }
+
+    private static int check(String label, EmployeeSummary expected, EmployeeSummary actual) {
+        if (expected.getCount() == actual.getCount()
+                && expected.getTotalSalaryCents() == actual.getTotalSalaryCents()
+                && expected.getTotalAge() == actual.getTotalAge()
+                && expected.getMinSalary() == actual.getMinSalary()
+                && expected.getMaxSalary() == actual.getMaxSalary()
+                && expected.getMinAge() == actual.getMinAge()
+                && expected.getMaxAge() == actual.getMaxAge()) {
+            return 0;
+        }
+        System.out.println("MISMATCH in " + label + ": " + describe(actual));
+        return 1;
+    }
+
+    private static String describe(EmployeeSummary s) {
+        return "count=" + s.getCount() + ", salaryCents=" + s.getTotalSalaryCents() + ", ageTotal=" + s.getTotalAge()
+            + ", salary " + s.getMinSalary() + ".." + s.getMaxSalary() + ", age " + s.getMinAge() + ".." + s.getMaxAge();
+    }
+}
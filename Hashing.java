@@ -0,0 +1,27 @@
+// 64-bit hashing shared by the probabilistic structures (Bloom filter,
+// HyperLogLog, Count-Min). String.hashCode is only 32 bits and too weak
+// in its low bits for register/bucket selection at large cardinalities.
+public class Hashing {
+    // Stands in for hash64(null), so null counts as a value like in a HashSet
+    public static final long NULL_HASH = mix64(0x9e3779b97f4a7c15L);
+
+    // 64-bit FNV-1a over the chars, then the MurmurHash3 finalizer
+    public static long hash64(CharSequence value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix64(h);
+    }
+
+    // MurmurHash3 fmix64: spreads every input bit over the whole result
+    public static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,313 @@
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+// Most frequent keys of a stream in bounded memory.
+//
+// Space-Saving monitors at most `capacity` keys. A new key that arrives when
+// all slots are taken replaces the key with the smallest count and inherits
+// that count as its possible overcount (error). Any key occurring more than
+// total / capacity times is guaranteed to be monitored.
+//
+// A Count-Min sketch next to it gives an independent upper bound for any key:
+// estimate <= true count + epsilon * total with probability 1 - delta. The
+// reported count is the smaller of the two upper bounds; lowerBound() is
+// what the key has certainly been seen.
+//
+// While fewer than `capacity` distinct keys have been seen, counts are exact
+// and no sketch is allocated: it is created on the first eviction, seeded
+// from the (still exact) monitored counts, so many small summaries, one per
+// group or parallel split, stay as small as their keys.
+public class HeavyHitters<K> {
+    public static final double DEFAULT_EPSILON = 0.001;
+    public static final double DEFAULT_DELTA = 0.01;
+
+    private final int capacity;
+    private final Map<K, Counter<K>> monitored;
+    private final List<Counter<K>> heap; // min-heap on count
+    private long total;
+
+    private long[][] sketch; // null until the first eviction
+    private final int width;
+    private final int depth;
+    private final double epsilon;
+    private final double delta;
+
+    public HeavyHitters(int capacity) {
+        this(capacity, DEFAULT_EPSILON, DEFAULT_DELTA);
+    }
+
+    public HeavyHitters(int capacity, double epsilon, double delta) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("epsilon and delta must be between 0 and 1");
+        }
+        this.capacity = capacity;
+        this.monitored = new HashMap<>(capacity * 2);
+        this.heap = new ArrayList<>(Math.min(capacity, 16));
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+    }
+
+    public static <T, K> Collector<T, HeavyHitters<K>, HeavyHitters<K>> collector(
+            Function<? super T, ? extends K> key, int capacity) {
+        return Collector.of(
+            () -> new HeavyHitters<>(capacity),
+            (hh, t) -> hh.add(key.apply(t)),
+            HeavyHitters::merge,
+            Collector.Characteristics.UNORDERED,
+            Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public void add(K key) {
+        add(key, 1);
+    }
+
+    public void add(K key, long weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight must be positive: " + weight);
+        }
+        total += weight;
+        Counter<K> counter = monitored.get(key);
+        if (counter == null && heap.size() == capacity && sketch == null) {
+            sketch = seed();
+        }
+        if (sketch != null) {
+            addToSketch(sketch, key, weight);
+        }
+
+        if (counter != null) {
+            counter.count += weight;
+            siftDown(counter.index);
+        } else if (heap.size() < capacity) {
+            push(new Counter<>(key, weight, 0));
+        } else {
+            // Evict the smallest; the newcomer may have been seen up to that many times before
+            Counter<K> evicted = heap.get(0);
+            monitored.remove(evicted.key);
+            long floor = evicted.count;
+            evicted.key = key;
+            evicted.error = floor;
+            evicted.count = floor + weight;
+            monitored.put(key, evicted);
+            siftDown(0);
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // Upper bound on how often key was added
+    public long estimateCount(K key) {
+        Counter<K> counter = monitored.get(key);
+        if (sketch == null) {
+            // Nothing evicted yet: monitored counts are exact
+            return counter != null ? counter.count : 0;
+        }
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, sketch[row][bucket(hash, row)]);
+        }
+        long spaceSaving = counter != null ? counter.count : floor();
+        return Math.min(estimate, spaceSaving);
+    }
+
+    // Up to k monitored keys, most frequent first
+    public List<Entry<K>> top(int k) {
+        List<Entry<K>> entries = new ArrayList<>(heap.size());
+        for (Counter<K> c : heap) {
+            long upper = estimateCount(c.key);
+            entries.add(new Entry<>(c.key, upper, Math.max(0, c.count - c.error)));
+        }
+        entries.sort(Comparator.comparingLong((Entry<K> e) -> e.count).reversed());
+        return entries.subList(0, Math.min(k, entries.size()));
+    }
+
+    public Optional<Entry<K>> mostFrequent() {
+        List<Entry<K>> top = top(1);
+        return top.isEmpty() ? Optional.empty() : Optional.of(top.get(0));
+    }
+
+    // Mergeable summaries: a key missing from one side may have been seen up
+    // to that side's minimum count there, so that minimum is added as error
+    public HeavyHitters<K> merge(HeavyHitters<K> other) {
+        if (other.capacity != capacity || other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge heavy hitters with different settings");
+        }
+        if (other == this) {
+            return this;
+        }
+
+        long thisFloor = floor();
+        long otherFloor = other.floor();
+        Map<K, long[]> combined = new HashMap<>();
+        for (Counter<K> c : heap) {
+            Counter<K> o = other.monitored.get(c.key);
+            combined.put(c.key, new long[] {
+                c.count + (o != null ? o.count : otherFloor),
+                c.error + (o != null ? o.error : otherFloor)});
+        }
+        for (Counter<K> o : other.heap) {
+            if (!monitored.containsKey(o.key)) {
+                combined.put(o.key, new long[] {o.count + thisFloor, o.error + thisFloor});
+            }
+        }
+
+        // Both sides exact and the union still fits: the result stays exact too
+        if (sketch != null || other.sketch != null || combined.size() > capacity) {
+            if (sketch == null) {
+                sketch = seed();
+            }
+            if (other.sketch != null) {
+                for (int row = 0; row < depth; row++) {
+                    for (int col = 0; col < width; col++) {
+                        sketch[row][col] += other.sketch[row][col];
+                    }
+                }
+            } else {
+                for (Counter<K> o : other.heap) {
+                    addToSketch(sketch, o.key, o.count);
+                }
+            }
+        }
+
+        List<Map.Entry<K, long[]>> ranked = new ArrayList<>(combined.entrySet());
+        ranked.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        monitored.clear();
+        heap.clear();
+        for (Map.Entry<K, long[]> e : ranked.subList(0, Math.min(capacity, ranked.size()))) {
+            push(new Counter<>(e.getKey(), e.getValue()[0], e.getValue()[1]));
+        }
+        total += other.total;
+        return this;
+    }
+
+    // Count-Min guarantee for the current total
+    public long errorBound() {
+        return (long) Math.ceil(epsilon * total);
+    }
+
+    public double confidence() {
+        return 1 - delta;
+    }
+
+    // Smallest monitored count once full: what an unmonitored key may have had
+    private long floor() {
+        return heap.size() < capacity ? 0 : heap.get(0).count;
+    }
+
+    // A sketch holding the monitored counts, exact while nothing was evicted
+    private long[][] seed() {
+        long[][] seeded = new long[depth][width];
+        for (Counter<K> c : heap) {
+            addToSketch(seeded, c.key, c.count);
+        }
+        return seeded;
+    }
+
+    private void addToSketch(long[][] target, Object key, long weight) {
+        long hash = hash(key);
+        for (int row = 0; row < depth; row++) {
+            target[row][bucket(hash, row)] += weight;
+        }
+    }
+
+    private void push(Counter<K> counter) {
+        monitored.put(counter.key, counter);
+        counter.index = heap.size();
+        heap.add(counter);
+        siftUp(counter.index);
+    }
+
+    private static long hash(Object key) {
+        return key instanceof CharSequence
+            ? Hashing.hash64((CharSequence) key)
+            : Hashing.mix64(Objects.hashCode(key));
+    }
+
+    private int bucket(long hash, int row) {
+        long step = Long.rotateLeft(hash, 32) | 1;
+        return (int) Long.remainderUnsigned(hash + row * step, width);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap.get(parent).count <= heap.get(i).count) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            int size = heap.size();
+            if (left < size && heap.get(left).count < heap.get(smallest).count) {
+                smallest = left;
+            }
+            if (right < size && heap.get(right).count < heap.get(smallest).count) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Counter<K> c = heap.get(a);
+        heap.set(a, heap.get(b));
+        heap.set(b, c);
+        heap.get(a).index = a;
+        c.index = b;
+    }
+
+    private static class Counter<K> {
+        K key;
+        long count;
+        long error;
+        int index;
+
+        Counter(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    public static class Entry<K> {
+        private final K key;
+        private final long count;
+        private final long lowerBound;
+
+        Entry(K key, long count, long lowerBound) {
+            this.key = key;
+            this.count = count;
+            this.lowerBound = lowerBound;
+        }
+
+        public K getKey() { return key; }
+
+        // Upper bound; exact while fewer than capacity distinct keys were seen
+        public long getCount() { return count; }
+        public long getLowerBound() { return lowerBound; }
+
+        @Override
+        public String toString() {
+            return key + "=" + count + (lowerBound < count ? " (>= " + lowerBound + ")" : "");
+        }
+    }
+}
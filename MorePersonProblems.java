@@ -15,26 +15,23 @@ public class MorePersonProblems {
             new Person("John", 45, 95000, "IT"),  // Duplicate name for testing
             new Person("Anna", 29, 52000, "Finance")
         );
+        PersonTable table = PersonTable.fromPersons(persons);
         
         System.out.println("===== MORE JAVA 8 STREAM PROBLEMS (41-50) =====\n");
         
         // Problem 41: Find duplicate names
         System.out.println("41. Find duplicate names:");
-        Set<String> uniqueNames = new HashSet<>();
-        Set<String> duplicateNames = persons.stream()
-            .map(Person::getName)
-            .filter(name -> !uniqueNames.add(name))
-            .collect(Collectors.toSet());
+        Set<String> duplicateNames = DuplicateDetector.findDuplicates(
+            () -> persons.parallelStream().map(Person::getName),
+            persons.size(),
+            0.01);
         System.out.println("  Duplicate names: " + duplicateNames);
         
         // Problem 42: Get employees with salary in top 50%
         System.out.println("\n42. Employees with salary in top 50%:");
-        double medianSalary = persons.stream()
-            .mapToDouble(Person::getSalary)
-            .sorted()
-            .skip(persons.size() / 2)
-            .findFirst()
-            .orElse(0.0);
+        // Upper median: the (n/2)-th smallest salary, found by selection instead of a sort
+        double medianSalary = persons.isEmpty() ? 0.0
+            : Percentiles.select(table.salaries(), persons.size() / 2);
         System.out.println("  Median salary: " + medianSalary);
         persons.stream()
             .filter(p -> p.getSalary() >= medianSalary)
@@ -54,14 +51,10 @@ public class MorePersonProblems {
         // Problem 44: Find the most common department
         System.out.println("\n44. Most common department:");
         persons.stream()
-            .collect(Collectors.groupingBy(
-                Person::getDepartment,
-                Collectors.counting()
-            ))
-            .entrySet().stream()
-            .max(Map.Entry.comparingByValue())
+            .collect(HeavyHitters.collector(Person::getDepartment, 64))
+            .mostFrequent()
             .ifPresent(entry -> 
-                System.out.println("  " + entry.getKey() + " (" + entry.getValue() + " employees)"));
+                System.out.println("  " + entry.getKey() + " (" + entry.getCount() + " employees)"));
         
         // Problem 45: Get employees sorted by name length then by name
         System.out.println("\n45. Employees sorted by name length then alphabetically:");
@@ -73,13 +66,18 @@ public class MorePersonProblems {
         
         // Problem 46: Calculate bonus (5% of salary) for each employee
         System.out.println("\n46. Calculate 5% bonus for each employee:");
-        persons.stream()
-            .forEach(p -> {
-                double bonus = p.getSalary() * 0.05;
-                System.out.println("  " + p.getName() + ": Salary=" + p.getSalary() + 
-                    ", Bonus=" + String.format("%.2f", bonus) + 
-                    ", Total=" + String.format("%.2f", p.getSalary() + bonus));
-            });
+        // Exact cents from one PayrollEngine pass; rows formatted into one
+        // buffer (see ReportSink)
+        long[] salaryCents = PayrollEngine.toCents(table.salaries());
+        PayrollEngine.Result withBonus = PayrollEngine.builder().bonusBps(500).build().run(salaryCents);
+        try (ReportSink out = ReportSink.stdout()) {
+            for (int row = 0; row < table.size(); row++) {
+                long total = withBonus.gross()[row];
+                out.append("  ").append(table.getName(row)).append(": Salary=").append(table.getSalary(row))
+                    .append(", Bonus=").appendCents(total - salaryCents[row])
+                    .append(", Total=").appendCents(total).newline();
+            }
+        }
         
         // Problem 47: Find employees with names containing 'a' (case-insensitive)
         System.out.println("\n47. Employees with names containing 'a' (case-insensitive):");
@@ -118,10 +116,13 @@ public class MorePersonProblems {
             .orElse(0.0);
         System.out.println("  Average age: " + String.format("%.2f", avgAge));
         
-        persons.stream()
-            .min(Comparator.comparingDouble(p -> Math.abs(p.getAge() - avgAge)))
-            .ifPresent(p -> System.out.println("  Closest: " + p.getName() + " (" + p.getAge() + 
-                ", difference: " + String.format("%.2f", Math.abs(p.getAge() - avgAge)) + ")"));
+        // Binary search on the age index instead of a min over every employee
+        int closestRow = table.ageIndex().nearestRow(avgAge);
+        if (closestRow >= 0) {
+            Person p = persons.get(closestRow);
+            System.out.println("  Closest: " + p.getName() + " (" + p.getAge() + 
+                ", difference: " + String.format("%.2f", Math.abs(p.getAge() - avgAge)) + ")");
+        }
         
         System.out.println("\n===== PROBLEMS 51-60 =====\n");
         
@@ -129,13 +130,16 @@ public class MorePersonProblems {
         System.out.println("51. Group employees by salary bracket (every 20000):");
         Map<Integer, List<Person>> bySalaryBracket = persons.stream()
             .collect(Collectors.groupingBy(p -> (int)(p.getSalary() / 20000) * 20000));
-        bySalaryBracket.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey())
-            .forEach(entry -> {
-                System.out.println("  " + entry.getKey() + "-" + (entry.getKey() + 19999) + ":");
-                entry.getValue().forEach(p -> 
-                    System.out.println("    - " + p.getName() + ": " + p.getSalary()));
-            });
+        try (ReportSink out = ReportSink.stdout()) {
+            bySalaryBracket.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    out.append("  ").append(entry.getKey()).append('-').append(entry.getKey() + 19999)
+                        .append(':').newline();
+                    entry.getValue().forEach(p -> 
+                        out.append("    - ").append(p.getName()).append(": ").append(p.getSalary()).newline());
+                });
+        }
         
         // Problem 52: Find employees with salary greater than average of their age group
         System.out.println("\n52. Employees with salary > average of their age group:");
@@ -150,14 +154,16 @@ public class MorePersonProblems {
             System.out.println("    " + group + ": " + String.format("%.2f", avg)));
         
         System.out.println("\n  Employees above their age group average:");
-        persons.forEach(p -> {
-            String group = p.getAge() >= 40 ? "40+" : p.getAge() >= 30 ? "30-39" : "20-29";
-            double groupAvg = ageGroupAvgSalary.get(group);
-            if (p.getSalary() > groupAvg) {
-                System.out.println("    - " + p.getName() + " (" + group + "): " + 
-                    p.getSalary() + " > " + String.format("%.2f", groupAvg));
+        try (ReportSink out = ReportSink.stdout()) {
+            for (Person p : persons) {
+                String group = p.getAge() >= 40 ? "40+" : p.getAge() >= 30 ? "30-39" : "20-29";
+                double groupAvg = ageGroupAvgSalary.get(group);
+                if (p.getSalary() > groupAvg) {
+                    out.append("    - ").append(p.getName()).append(" (").append(group).append("): ")
+                        .append(p.getSalary()).append(" > ").appendFixed(groupAvg, 2).newline();
+                }
             }
-        });
+        }
         
         // Problem 53: Get the longest name
         System.out.println("\n53. Longest name(s):");
@@ -190,14 +196,17 @@ public class MorePersonProblems {
         
         // Problem 56: Calculate cumulative salary
         System.out.println("\n56. Cumulative salary (running total):");
-        final double[] cumulative = {0};
-        persons.stream()
-            .sorted(Comparator.comparingDouble(Person::getSalary))
-            .forEach(p -> {
-                cumulative[0] += p.getSalary();
-                System.out.println("  " + p.getName() + ": " + p.getSalary() + 
-                    " (Cumulative: " + String.format("%.2f", cumulative[0]) + ")");
-            });
+        // Salaries in index order (ties keep list order, like a stable sort),
+        // scanned with PrefixSums instead of a mutable accumulator in forEach
+        SortedIndex bySalary = table.salaryIndex();
+        double[] sortedSalaries = bySalary.keys();
+        double[] cumulative = PrefixSums.runningTotals(sortedSalaries);
+        try (ReportSink out = ReportSink.stdout()) {
+            for (int i = 0; i < sortedSalaries.length; i++) {
+                out.append("  ").append(table.getName(bySalary.rowAt(i))).append(": ").append(sortedSalaries[i])
+                    .append(" (Cumulative: ").appendFixed(cumulative[i], 2).append(')').newline();
+            }
+        }
         
         // Problem 57: Group by department and get min, max, avg salary
         System.out.println("\n57. Department salary statistics (min, max, avg):");
@@ -220,30 +229,21 @@ public class MorePersonProblems {
         
         // Problem 59: Calculate tax for each employee (20% tax if salary > 60000, else 10%)
         System.out.println("\n59. Calculate tax for each employee:");
-        persons.stream()
-            .forEach(p -> {
-                double taxRate = p.getSalary() > 60000 ? 0.20 : 0.10;
-                double tax = p.getSalary() * taxRate;
-                double netSalary = p.getSalary() - tax;
-                System.out.println("  " + p.getName() + ": Gross=" + p.getSalary() + 
-                    ", Tax=" + String.format("%.2f", tax) + " (" + (taxRate * 100) + "%)" +
-                    ", Net=" + String.format("%.2f", netSalary));
-            });
+        // 20% of the whole salary above 60000, else 10%
+        PayrollEngine.TaxTable taxTable = PayrollEngine.TaxTable.flat(new long[] {60000_00}, new int[] {1000, 2000});
+        PayrollEngine.Result taxed = PayrollEngine.builder().tax(taxTable).build().run(salaryCents);
+        try (ReportSink out = ReportSink.stdout()) {
+            for (int row = 0; row < table.size(); row++) {
+                out.append("  ").append(table.getName(row)).append(": Gross=").append(table.getSalary(row))
+                    .append(", Tax=").appendCents(taxed.tax()[row])
+                    .append(" (").append(taxTable.rateBpsFor(taxed.gross()[row]) / 100.0).append("%)")
+                    .append(", Net=").appendCents(taxed.net()[row]).newline();
+            }
+        }
         
         // Problem 60: Find the median salary
         System.out.println("\n60. Median salary:");
-        List<Double> sortedSalaries = persons.stream()
-            .map(Person::getSalary)
-            .sorted()
-            .collect(Collectors.toList());
-        
-        int size = sortedSalaries.size();
-        if (size % 2 == 0) {
-            double median = (sortedSalaries.get(size/2 - 1) + sortedSalaries.get(size/2)) / 2;
-            System.out.println("  Median: " + median);
-        } else {
-            System.out.println("  Median: " + sortedSalaries.get(size/2));
-        }
+        System.out.println("  Median: " + table.salaryQuantile(0.5));
         
         System.out.println("\n===== ALL PROBLEMS (41-60) SOLVED SUCCESSFULLY =====");
     }
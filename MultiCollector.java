@@ -0,0 +1,87 @@
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+// Runs several named collectors over a stream in a single pass.
+// Each element is handed to every downstream accumulator, parallel splits are
+// merged with each downstream combiner, and the finished values are returned
+// by name in the order they were added. The result is itself a Collector, so
+// it can be used as a groupingBy downstream as well.
+//
+// Example:
+//   Map<String, Object> stats = persons.stream().collect(MultiCollector.<Person>builder()
+//       .add("totalSalary", Collectors.summingDouble(Person::getSalary))
+//       .add("byDept", Collectors.groupingBy(Person::getDepartment, Collectors.counting()))
+//       .build());
+public class MultiCollector {
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public static class Builder<T> {
+        private final List<String> names = new ArrayList<>();
+        private final List<Collector<? super T, ?, ?>> collectors = new ArrayList<>();
+
+        public Builder<T> add(String name, Collector<? super T, ?, ?> collector) {
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Duplicate aggregate name: " + name);
+            }
+            names.add(name);
+            collectors.add(collector);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Collector<T, ?, Map<String, Object>> build() {
+            int n = collectors.size();
+            String[] keys = names.toArray(new String[0]);
+            List<Supplier<Object>> suppliers = new ArrayList<>(n);
+            List<BiConsumer<Object, T>> accumulators = new ArrayList<>(n);
+            List<BinaryOperator<Object>> combiners = new ArrayList<>(n);
+            List<Function<Object, Object>> finishers = new ArrayList<>(n);
+            boolean unordered = true;
+            for (int i = 0; i < n; i++) {
+                Collector<T, Object, Object> c = (Collector<T, Object, Object>) collectors.get(i);
+                suppliers.add(c.supplier());
+                accumulators.add(c.accumulator());
+                combiners.add(c.combiner());
+                finishers.add(c.finisher());
+                unordered &= c.characteristics().contains(Collector.Characteristics.UNORDERED);
+            }
+
+            Supplier<Object[]> supplier = () -> {
+                Object[] containers = new Object[n];
+                for (int i = 0; i < n; i++) {
+                    containers[i] = suppliers.get(i).get();
+                }
+                return containers;
+            };
+            BiConsumer<Object[], T> accumulator = (containers, t) -> {
+                for (int i = 0; i < n; i++) {
+                    accumulators.get(i).accept(containers[i], t);
+                }
+            };
+            BinaryOperator<Object[]> combiner = (left, right) -> {
+                for (int i = 0; i < n; i++) {
+                    left[i] = combiners.get(i).apply(left[i], right[i]);
+                }
+                return left;
+            };
+            Function<Object[], Map<String, Object>> finisher = containers -> {
+                Map<String, Object> result = new LinkedHashMap<>();
+                for (int i = 0; i < n; i++) {
+                    result.put(keys[i], finishers.get(i).apply(containers[i]));
+                }
+                return result;
+            };
+
+            return unordered
+                ? Collector.of(supplier, accumulator, combiner, finisher, Collector.Characteristics.UNORDERED)
+                : Collector.of(supplier, accumulator, combiner, finisher);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+import java.lang.foreign.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+// Person/Employee rows stored outside the Java heap (Foreign Function &
+// Memory API; a preview in JDK 21, so compile and run with --enable-preview).
+//
+// Every row is a fixed 24-byte record (see RECORD) in one MemorySegment.
+// Departments are few, so they are dictionary coded like in PersonTable,
+// with the dictionary off-heap too. Names are nearly unique, so they are
+// not deduplicated: each record points at its name in an append-only
+// off-heap area (4-byte length, -1 for null, then the UTF-8 bytes). Neither
+// building nor reading keeps anything per row on the heap; the builder only
+// holds the department codes. The GC has nothing to trace or copy, while a
+// List<Person> of the same rows costs 60-80 bytes per row of heap.
+//
+// Sizing: 24 bytes per row plus 4 + the name's UTF-8 length, so 100M rows
+// with 10-character names take about 3.8 GB of native memory. build() trims
+// the name area by copying it once, which needs that area twice for a moment.
+//
+// Memory belongs to shared Arenas: readable from any thread, and freed
+// all at once by close() instead of whenever the GC gets to it. Any access
+// after close() throws IllegalStateException. Arena memory counts against
+// -XX:MaxDirectMemorySize, which defaults to -Xmx, so a small heap needs
+// that limit raised (e.g. -Xmx256m -XX:MaxDirectMemorySize=6g for 100M rows).
+//
+//   try (OffHeapPersonStore store = OffHeapPersonStore.fromPersons(persons)) {
+//       OffHeapPersonStore.Cursor p = store.cursor();
+//       while (p.next()) {
+//           if (p.getSalary() > 50000) ... p.getName() ...
+//       }
+//   }
+public class OffHeapPersonStore implements AutoCloseable {
+    public static final StructLayout RECORD = MemoryLayout.structLayout(
+        ValueLayout.JAVA_DOUBLE.withName("salary"),
+        ValueLayout.JAVA_INT.withName("age"),
+        ValueLayout.JAVA_INT.withName("departmentCode"),
+        ValueLayout.JAVA_LONG.withName("nameOffset"));
+
+    private static final long RECORD_SIZE = RECORD.byteSize();
+    private static final long SALARY = offsetOf("salary");
+    private static final long AGE = offsetOf("age");
+    private static final long DEPARTMENT_CODE = offsetOf("departmentCode");
+    private static final long NAME_OFFSET = offsetOf("nameOffset");
+
+    private final Arena arena;
+    private final MemorySegment records;
+    private final long size;
+    private final Arena nameArena;
+    private final MemorySegment names;
+    private final Dictionary departments;
+
+    private OffHeapPersonStore(Builder builder) {
+        this.arena = builder.records.arena;
+        this.records = builder.records.segment;
+        this.size = builder.size;
+        this.nameArena = builder.names.arena;
+        this.names = builder.names.segment;
+        this.departments = new Dictionary(arena, builder.departments);
+    }
+
+    public static Builder builder() {
+        return new Builder(1024);
+    }
+
+    // Reserving the final size up front avoids copying the records while growing
+    public static Builder builder(long expectedRows) {
+        return new Builder(expectedRows);
+    }
+
+    public static <T> OffHeapPersonStore from(Collection<T> rows,
+                                              Function<T, String> name,
+                                              ToIntFunction<T> age,
+                                              ToDoubleFunction<T> salary,
+                                              Function<T, String> department) {
+        try (Builder builder = new Builder(rows.size())) {
+            for (T row : rows) {
+                builder.add(name.apply(row), age.applyAsInt(row), salary.applyAsDouble(row), department.apply(row));
+            }
+            return builder.build();
+        }
+    }
+
+    public static OffHeapPersonStore fromPersons(Collection<Person> persons) {
+        return from(persons, Person::getName, Person::getAge, Person::getSalary, Person::getDepartment);
+    }
+
+    public static OffHeapPersonStore fromEmployees(Collection<Employee> employees) {
+        return from(employees, Employee::getName, Employee::getAge, Employee::getSalary, Employee::getDepartment);
+    }
+
+    // ---------- row access ----------
+
+    public long size() { return size; }
+    public int getAge(long row) { return records.get(ValueLayout.JAVA_INT, offset(row) + AGE); }
+    public double getSalary(long row) { return records.get(ValueLayout.JAVA_DOUBLE, offset(row) + SALARY); }
+    public String getDepartment(long row) { return departments.get(getDepartmentCode(row)); }
+    public int getDepartmentCode(long row) { return records.get(ValueLayout.JAVA_INT, offset(row) + DEPARTMENT_CODE); }
+
+    public String getName(long row) {
+        long at = records.get(ValueLayout.JAVA_LONG, offset(row) + NAME_OFFSET);
+        int length = names.get(ValueLayout.JAVA_INT_UNALIGNED, at);
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        MemorySegment.copy(names, ValueLayout.JAVA_BYTE, at + Integer.BYTES, value, 0, length);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    public Person toPerson(long row) {
+        return new Person(getName(row), getAge(row), getSalary(row), getDepartment(row));
+    }
+
+    public int departmentCount() { return departments.size(); }
+    public String departmentName(int code) { return departments.get(code); }
+
+    // Returns -1 if the department does not occur in the store
+    public int departmentCodeOf(String department) {
+        return departments.codeOf(department);
+    }
+
+    // A reusable view positioned on one row at a time; no object per row
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    // The same cursor is passed for every row, so do not keep it
+    public void forEach(Consumer<? super Cursor> action) {
+        Cursor cursor = new Cursor();
+        while (cursor.next()) {
+            action.accept(cursor);
+        }
+    }
+
+    // ---------- queries (same semantics as PersonTable) ----------
+
+    public double totalSalary() {
+        double sum = 0;
+        for (long offset = SALARY; offset < size * RECORD_SIZE; offset += RECORD_SIZE) {
+            sum += records.get(ValueLayout.JAVA_DOUBLE, offset);
+        }
+        return sum;
+    }
+
+    public double averageSalary() {
+        return size == 0 ? 0.0 : totalSalary() / size;
+    }
+
+    public double[] totalSalaryByDepartmentCode() {
+        double[] totals = new double[departments.size()];
+        for (long offset = 0; offset < size * RECORD_SIZE; offset += RECORD_SIZE) {
+            totals[records.get(ValueLayout.JAVA_INT, offset + DEPARTMENT_CODE)] +=
+                records.get(ValueLayout.JAVA_DOUBLE, offset + SALARY);
+        }
+        return totals;
+    }
+
+    public Map<String, Double> totalSalaryByDepartment() {
+        double[] totals = totalSalaryByDepartmentCode();
+        Map<String, Double> result = new HashMap<>();
+        for (int code = 0; code < totals.length; code++) {
+            result.put(departments.get(code), totals[code]);
+        }
+        return result;
+    }
+
+    public double averageSalaryWhereAgeAbove(int minAgeExclusive) {
+        double sum = 0;
+        long count = 0;
+        for (long offset = 0; offset < size * RECORD_SIZE; offset += RECORD_SIZE) {
+            if (records.get(ValueLayout.JAVA_INT, offset + AGE) > minAgeExclusive) {
+                sum += records.get(ValueLayout.JAVA_DOUBLE, offset + SALARY);
+                count++;
+            }
+        }
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    // Native memory held: records (exactly size rows), names and the department dictionary
+    public long offHeapBytes() {
+        return records.byteSize() + names.byteSize() + departments.byteSize();
+    }
+
+    public boolean isOpen() {
+        return arena.scope().isAlive();
+    }
+
+    // Frees all native memory now; idempotent
+    @Override
+    public void close() {
+        if (isOpen()) {
+            arena.close();
+            nameArena.close();
+        }
+    }
+
+    private static long offset(long row) {
+        return row * RECORD_SIZE;
+    }
+
+    private static long offsetOf(String field) {
+        return RECORD.byteOffset(MemoryLayout.PathElement.groupElement(field));
+    }
+
+    public class Cursor {
+        private long row = -1;
+
+        // Moves to the next row; false once past the last one
+        public boolean next() {
+            if (row + 1 >= size) {
+                row = size;
+                return false;
+            }
+            row++;
+            return true;
+        }
+
+        public Cursor moveTo(long row) {
+            Objects.checkIndex(row, size);
+            this.row = row;
+            return this;
+        }
+
+        public long getRow() { return row; }
+        public String getName() { return OffHeapPersonStore.this.getName(row); }
+        public int getAge() { return OffHeapPersonStore.this.getAge(row); }
+        public double getSalary() { return OffHeapPersonStore.this.getSalary(row); }
+        public String getDepartment() { return OffHeapPersonStore.this.getDepartment(row); }
+        public int getDepartmentCode() { return OffHeapPersonStore.this.getDepartmentCode(row); }
+
+        public Person toPerson() {
+            return OffHeapPersonStore.this.toPerson(row);
+        }
+
+        @Override
+        public String toString() {
+            return getName() + " (" + getAge() + ", " + getSalary() + ", " + getDepartment() + ")";
+        }
+    }
+
+    // Strings by code: UTF-8 bytes back to back, plus one (offset, length)
+    // entry per code; length -1 stands for null
+    private static class Dictionary {
+        private static final StructLayout ENTRY = MemoryLayout.structLayout(
+            ValueLayout.JAVA_LONG.withName("offset"),
+            ValueLayout.JAVA_INT.withName("length"),
+            MemoryLayout.paddingLayout(4));
+
+        private final MemorySegment entries;
+        private final MemorySegment bytes;
+        private final int size;
+
+        Dictionary(Arena arena, List<String> values) {
+            byte[][] encoded = new byte[values.size()][];
+            long totalBytes = 0;
+            for (int code = 0; code < encoded.length; code++) {
+                String value = values.get(code);
+                if (value != null) {
+                    encoded[code] = value.getBytes(StandardCharsets.UTF_8);
+                    totalBytes += encoded[code].length;
+                }
+            }
+            this.size = encoded.length;
+            this.entries = arena.allocate(ENTRY.byteSize() * Math.max(size, 1), ENTRY.byteAlignment());
+            this.bytes = arena.allocate(Math.max(totalBytes, 1), 1);
+            long position = 0;
+            for (int code = 0; code < size; code++) {
+                long entry = code * ENTRY.byteSize();
+                byte[] value = encoded[code];
+                entries.set(ValueLayout.JAVA_LONG, entry, position);
+                entries.set(ValueLayout.JAVA_INT, entry + 8, value == null ? -1 : value.length);
+                if (value != null) {
+                    MemorySegment.copy(value, 0, bytes, ValueLayout.JAVA_BYTE, position, value.length);
+                    position += value.length;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        String get(int code) {
+            Objects.checkIndex(code, size);
+            long entry = code * ENTRY.byteSize();
+            int length = entries.get(ValueLayout.JAVA_INT, entry + 8);
+            if (length < 0) {
+                return null;
+            }
+            byte[] value = new byte[length];
+            MemorySegment.copy(bytes, ValueLayout.JAVA_BYTE, entries.get(ValueLayout.JAVA_LONG, entry), value, 0, length);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+
+        // Linear scan; meant for small dictionaries like departments
+        int codeOf(String value) {
+            for (int code = 0; code < size; code++) {
+                if (Objects.equals(get(code), value)) {
+                    return code;
+                }
+            }
+            return -1;
+        }
+
+        long byteSize() {
+            return entries.byteSize() + bytes.byteSize();
+        }
+    }
+
+    // Records and names are written straight into native memory; only the
+    // department codes are kept on the heap while building, and build()
+    // moves them off-heap. build() hands both areas to the store trimmed to
+    // what was written, copying each into a fresh arena unless it is already
+    // exact (records are when builder(expectedRows) was right). A builder
+    // that is never built holds native memory until close(), so use
+    // try-with-resources; close() after build() does nothing.
+    public static class Builder implements AutoCloseable {
+        private final Area records;
+        private final Area names;
+        private long size;
+        private final List<String> departments = new ArrayList<>();
+        private final Map<String, Integer> departmentCodes = new HashMap<>();
+        private boolean built;
+
+        private Builder(long expectedRows) {
+            long rows = Math.max(expectedRows, 1);
+            this.records = new Area(RECORD_SIZE * rows, RECORD.byteAlignment());
+            // A guess of 16 bytes per name; the area doubles when it runs out
+            this.names = new Area(16 * rows, 1);
+        }
+
+        // Same argument order as new Person(...) / new Employee(...)
+        public Builder add(String name, int age, double salary, String department) {
+            checkBuilding();
+            byte[] encoded = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+            long nameOffset = names.used;
+            names.reserve(Integer.BYTES + (encoded == null ? 0 : encoded.length));
+            names.segment.set(ValueLayout.JAVA_INT_UNALIGNED, nameOffset, encoded == null ? -1 : encoded.length);
+            if (encoded != null) {
+                MemorySegment.copy(encoded, 0, names.segment, ValueLayout.JAVA_BYTE, nameOffset + Integer.BYTES, encoded.length);
+            }
+
+            long offset = records.used;
+            records.reserve(RECORD_SIZE);
+            records.segment.set(ValueLayout.JAVA_DOUBLE, offset + SALARY, salary);
+            records.segment.set(ValueLayout.JAVA_INT, offset + AGE, age);
+            records.segment.set(ValueLayout.JAVA_INT, offset + DEPARTMENT_CODE, encode(department));
+            records.segment.set(ValueLayout.JAVA_LONG, offset + NAME_OFFSET, nameOffset);
+            size++;
+            return this;
+        }
+
+        public Builder add(Person p) {
+            return add(p.getName(), p.getAge(), p.getSalary(), p.getDepartment());
+        }
+
+        public Builder add(Employee e) {
+            return add(e.getName(), e.getAge(), e.getSalary(), e.getDepartment());
+        }
+
+        // The store takes over both areas, trimmed to what was written
+        public OffHeapPersonStore build() {
+            checkBuilding();
+            records.trim();
+            names.trim();
+            built = true;
+            return new OffHeapPersonStore(this);
+        }
+
+        // Frees the memory of a builder that was never built; idempotent
+        @Override
+        public void close() {
+            if (!built) {
+                records.close();
+                names.close();
+            }
+        }
+
+        private void checkBuilding() {
+            if (built) {
+                throw new IllegalStateException("Builder was already built");
+            }
+            if (!records.arena.scope().isAlive()) {
+                throw new IllegalStateException("Builder was closed");
+            }
+        }
+
+        private int encode(String department) {
+            Integer code = departmentCodes.get(department);
+            if (code == null) {
+                code = departments.size();
+                departments.add(department);
+                departmentCodes.put(department, code);
+            }
+            return code;
+        }
+    }
+
+    // One growable native area with its own arena, so it can be moved to a
+    // larger (or exact-size) segment and the old memory freed right away
+    private static class Area {
+        private final long alignment;
+        private Arena arena;
+        private MemorySegment segment;
+        private long used;
+
+        Area(long bytes, long alignment) {
+            this.alignment = alignment;
+            this.arena = Arena.ofShared();
+            this.segment = arena.allocate(bytes, alignment);
+        }
+
+        // Makes room for bytes more, doubling as needed, and claims them
+        void reserve(long bytes) {
+            if (used + bytes > segment.byteSize()) {
+                long capacity = segment.byteSize();
+                while (capacity < used + bytes) {
+                    capacity *= 2;
+                }
+                moveTo(capacity);
+            }
+            used += bytes;
+        }
+
+        void trim() {
+            long exact = Math.max(used, 1);
+            if (segment.byteSize() != exact) {
+                moveTo(exact);
+            }
+        }
+
+        void close() {
+            if (arena.scope().isAlive()) {
+                arena.close();
+            }
+        }
+
+        private void moveTo(long capacity) {
+            Arena next = Arena.ofShared();
+            MemorySegment copy = next.allocate(capacity, alignment);
+            MemorySegment.copy(segment, 0, copy, 0, used);
+            arena.close();
+            arena = next;
+            segment = copy;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+import java.util.*;
+
+// Batch payroll over salary columns held as long cents (Problems 30, 46, 59).
+// Rates are basis points (500 = 5%), so every step is integer arithmetic:
+//   increment = round(salary * incrementBps / 10000)
+//   base      = salary + increment
+//   bonus     = round(base * bonusBps / 10000)
+//   gross     = base + bonus
+//   tax       = TaxTable applied to gross
+//   net       = gross - tax
+// Each amount is rounded half-up to a whole cent once, so results are exact
+// and the same on every machine, unlike the per-row double arithmetic they
+// replace.
+//
+// run() is one pass over the rows with a branch-free body: brackets are
+// picked with compares and selects. With jdk.incubator.vector present (see
+// SalaryKernels) the pass runs in VectorKernels one register of rows at a
+// time; otherwise, or for the tail, the scalar loop here. Both give the same
+// cents. Amounts are limited to MAX_CENTS so the products stay exact.
+public class PayrollEngine {
+    // $1 billion: even after a 100% increment and a 100% bonus, gross * rate
+    // stays below 2^53
+    public static final long MAX_CENTS = 100_000_000_000L;
+    static final int BPS = 10_000;
+
+    private final int incrementBps;
+    private final int bonusBps;
+    private final TaxTable tax;
+
+    private PayrollEngine(Builder b) {
+        this.incrementBps = b.incrementBps;
+        this.bonusBps = b.bonusBps;
+        this.tax = b.tax;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public TaxTable taxTable() { return tax; }
+
+    // Whole-cent amounts, rounded half-up (exact for the whole-dollar salaries
+    // in the problems)
+    public static long[] toCents(double[] amounts) {
+        long[] cents = new long[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            double c = amounts[i] * 100;
+            if (!(Math.abs(c) <= MAX_CENTS)) {
+                throw new IllegalArgumentException("Amount out of range at row " + i + ": " + amounts[i]);
+            }
+            cents[i] = Math.round(c);
+        }
+        return cents;
+    }
+
+    public Result run(long[] salaryCents) {
+        int n = salaryCents.length;
+        Result result = new Result(n);
+        run(salaryCents, 0, n, result.gross, result.tax, result.net);
+        return result;
+    }
+
+    // Rows [from, to) into caller-owned arrays at the same positions, e.g. to
+    // reuse buffers or to split a large payroll across threads
+    public void run(long[] salaryCents, int from, int to, long[] gross, long[] tax, long[] net) {
+        Objects.checkFromToIndex(from, to, salaryCents.length);
+        Objects.checkFromToIndex(from, to, gross.length);
+        Objects.checkFromToIndex(from, to, tax.length);
+        Objects.checkFromToIndex(from, to, net.length);
+        for (int i = from; i < to; i++) {
+            checkRange(salaryCents[i], i);
+        }
+
+        long increment = incrementBps;
+        long bonus = bonusBps;
+        long[] thresholds = this.tax.thresholds;
+        long[] rates = this.tax.rates;
+        long[] baseTax = this.tax.baseTax;
+        boolean progressive = this.tax.progressive;
+        int brackets = thresholds.length;
+        int i = from;
+        if (SalaryKernels.VECTORIZED) {
+            i = VectorKernels.payroll(salaryCents, from, to, increment, bonus,
+                thresholds, rates, baseTax, progressive, gross, tax, net);
+        }
+        for (; i < to; i++) {
+            long salary = salaryCents[i];
+            long base = salary + roundBps(salary * increment);
+            long g = base + roundBps(base * bonus);
+
+            // Bracket = number of thresholds below g; compares and selects only
+            long rate = rates[0];
+            long lower = 0;
+            long before = 0;
+            for (int b = 0; b < brackets; b++) {
+                boolean above = g > thresholds[b];
+                rate = above ? rates[b + 1] : rate;
+                lower = above ? thresholds[b] : lower;
+                before = above ? baseTax[b + 1] : before;
+            }
+            long t = progressive
+                ? roundBps(before + (g - lower) * rate)
+                : roundBps(g * rate);
+
+            gross[i] = g;
+            tax[i] = t;
+            net[i] = g - t;
+        }
+    }
+
+    // round(x / 10000), half-up, for x >= 0 in cent-basis-points; division
+    // by a constant compiles to a multiply and shifts
+    static long roundBps(long x) {
+        return (x + BPS / 2) / BPS;
+    }
+
+    private static void checkRange(long cents, int row) {
+        if (cents < 0 || cents > MAX_CENTS) {
+            throw new IllegalArgumentException("Salary out of range at row " + row + ": " + cents + " cents");
+        }
+    }
+
+    public static final class Result {
+        private final long[] gross;
+        private final long[] tax;
+        private final long[] net;
+
+        Result(int n) {
+            this.gross = new long[n];
+            this.tax = new long[n];
+            this.net = new long[n];
+        }
+
+        // Backing arrays, in cents; do not modify
+        public long[] gross() { return gross; }
+        public long[] tax() { return tax; }
+        public long[] net() { return net; }
+
+        public long totalGross() { return sum(gross); }
+        public long totalTax() { return sum(tax); }
+        public long totalNet() { return sum(net); }
+
+        private static long sum(long[] values) {
+            long sum = 0;
+            for (long v : values) {
+                sum += v;
+            }
+            return sum;
+        }
+    }
+
+    // Brackets by gross amount: rates[0] applies up to thresholds[0] (inclusive),
+    // rates[k] above thresholds[k-1]. flat() charges the bracket's rate on the
+    // whole amount (Problem 59: 20% of salary above 60000, else 10%);
+    // progressive() charges each rate only on the slice inside its bracket.
+    public static final class TaxTable {
+        private final long[] thresholds;
+        private final long[] rates;
+        private final boolean progressive;
+        // Exact tax (cent-bps) owed on everything up to thresholds[k-1]; progressive only
+        private final long[] baseTax;
+
+        private TaxTable(long[] thresholdsCents, int[] ratesBps, boolean progressive) {
+            if (ratesBps.length != thresholdsCents.length + 1) {
+                throw new IllegalArgumentException("Need one more rate than thresholds: "
+                    + ratesBps.length + " rates, " + thresholdsCents.length + " thresholds");
+            }
+            for (int k = 0; k < thresholdsCents.length; k++) {
+                if (thresholdsCents[k] < 0 || thresholdsCents[k] > MAX_CENTS
+                        || (k > 0 && thresholdsCents[k] <= thresholdsCents[k - 1])) {
+                    throw new IllegalArgumentException("Thresholds must be ascending cents: "
+                        + Arrays.toString(thresholdsCents));
+                }
+            }
+            this.thresholds = thresholdsCents.clone();
+            this.rates = new long[ratesBps.length];
+            for (int k = 0; k < ratesBps.length; k++) {
+                if (ratesBps[k] < 0 || ratesBps[k] > BPS) {
+                    throw new IllegalArgumentException("Rate must be 0..10000 bps: " + ratesBps[k]);
+                }
+                rates[k] = ratesBps[k];
+            }
+            this.progressive = progressive;
+            this.baseTax = new long[ratesBps.length];
+            long lower = 0;
+            for (int k = 0; k < thresholds.length; k++) {
+                baseTax[k + 1] = baseTax[k] + (thresholds[k] - lower) * rates[k];
+                lower = thresholds[k];
+            }
+        }
+
+        public static TaxTable none() {
+            return new TaxTable(new long[0], new int[] {0}, false);
+        }
+
+        public static TaxTable flat(long[] thresholdsCents, int[] ratesBps) {
+            return new TaxTable(thresholdsCents, ratesBps, false);
+        }
+
+        public static TaxTable progressive(long[] thresholdsCents, int[] ratesBps) {
+            return new TaxTable(thresholdsCents, ratesBps, true);
+        }
+
+        // Rate of the bracket that grossCents falls in
+        public int rateBpsFor(long grossCents) {
+            int k = 0;
+            while (k < thresholds.length && grossCents > thresholds[k]) {
+                k++;
+            }
+            return (int) rates[k];
+        }
+    }
+
+    public static class Builder {
+        private int incrementBps;
+        private int bonusBps;
+        private TaxTable tax = TaxTable.none();
+
+        // Problem 30: 1000 = 10% raise
+        public Builder incrementBps(int bps) {
+            incrementBps = checkRate(bps);
+            return this;
+        }
+
+        // Problem 46: 500 = 5% bonus, on the salary after any increment
+        public Builder bonusBps(int bps) {
+            bonusBps = checkRate(bps);
+            return this;
+        }
+
+        public Builder tax(TaxTable table) {
+            tax = table;
+            return this;
+        }
+
+        public PayrollEngine build() {
+            return new PayrollEngine(this);
+        }
+
+        private static int checkRate(int bps) {
+            if (bps < 0 || bps > BPS) {
+                throw new IllegalArgumentException("Rate must be 0..10000 bps: " + bps);
+            }
+            return bps;
+        }
+    }
+}
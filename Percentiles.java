@@ -0,0 +1,245 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Exact order statistics on primitive arrays without sorting or boxing.
+// select/quantile/median run introselect (quickselect that falls back to a
+// sort after too many bad pivots) in expected O(n) time. The public methods
+// never modify their input; the *InPlace variants do, and avoid the copy.
+// Arrays must not contain NaN.
+public class Percentiles {
+    // Below this length the parallel variants just run sequentially
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private static final int BUCKETS = 1 << 12;
+
+    // k-th smallest value, 0-based (k = 0 is the minimum)
+    public static double select(double[] values, int k) {
+        checkRank(values.length, k);
+        return selectInPlace(values.clone(), k);
+    }
+
+    public static double selectInPlace(double[] values, int k) {
+        checkRank(values.length, k);
+        return introselect(values, 0, values.length - 1, k);
+    }
+
+    // Same result as select, but splits the work over the common pool for
+    // large arrays: parallel histogram passes narrow the candidates down to
+    // one bucket, which is then selected sequentially.
+    public static double selectParallel(double[] values, int k) {
+        checkRank(values.length, k);
+        if (values.length < PARALLEL_THRESHOLD) {
+            return select(values, k);
+        }
+        return bucketSelect(values, k);
+    }
+
+    // Quantile q in [0, 1], linearly interpolated between the two closest
+    // ranks (so quantile(values, 0.5) is the usual even/odd median)
+    public static double quantile(double[] values, double q) {
+        return quantile(values, q, false);
+    }
+
+    public static double quantile(double[] values, double q, boolean parallel) {
+        if (q < 0 || q > 1 || Double.isNaN(q)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        if (values.length == 0) {
+            throw new IllegalArgumentException("No values");
+        }
+        double position = q * (values.length - 1);
+        int lower = (int) Math.floor(position);
+        double fraction = position - lower;
+        if (parallel) {
+            double low = selectParallel(values, lower);
+            if (fraction == 0) {
+                return low;
+            }
+            // Rank lower + 1 is low again if low repeats past it, otherwise the next larger value
+            long notAbove = Arrays.stream(values).parallel().filter(v -> v <= low).count();
+            double high = notAbove > lower + 1
+                ? low
+                : Arrays.stream(values).parallel().filter(v -> v > low).min().getAsDouble();
+            return low + fraction * (high - low);
+        }
+        double[] copy = values.clone();
+        double low = introselect(copy, 0, copy.length - 1, lower);
+        if (fraction == 0) {
+            return low;
+        }
+        // After selecting `lower`, everything to its right is >= low, so the
+        // next rank is the minimum of that part
+        double high = copy[lower + 1];
+        for (int i = lower + 2; i < copy.length; i++) {
+            high = Math.min(high, copy[i]);
+        }
+        return low + fraction * (high - low);
+    }
+
+    // Average of the two middle values for even lengths (Problem 60)
+    public static double median(double[] values) {
+        return quantile(values, 0.5);
+    }
+
+    // k-th largest distinct value, 1-based (k = 2 is "second highest", Problem 15).
+    // Keeps a sorted buffer of the k largest distinct values seen: O(n * k)
+    // worst case, a single compare per row once the buffer is full.
+    public static OptionalDouble kthLargestDistinct(double[] values, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        double[] best = new double[k]; // descending
+        int size = 0;
+        for (double v : values) {
+            if (size == k && Double.compare(v, best[k - 1]) <= 0) {
+                continue;
+            }
+            int pos = size;
+            while (pos > 0 && Double.compare(v, best[pos - 1]) > 0) {
+                pos--;
+            }
+            if (pos > 0 && Double.compare(v, best[pos - 1]) == 0) {
+                continue;
+            }
+            int end = Math.min(size, k - 1);
+            System.arraycopy(best, pos, best, pos + 1, end - pos);
+            best[pos] = v;
+            size = Math.min(size + 1, k);
+        }
+        return size == k ? OptionalDouble.of(best[k - 1]) : OptionalDouble.empty();
+    }
+
+    public static double[] toDoubles(int[] values) {
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i];
+        }
+        return result;
+    }
+
+    private static void checkRank(int length, int k) {
+        if (k < 0 || k >= length) {
+            throw new IndexOutOfBoundsException("Rank " + k + " out of range for " + length + " values");
+        }
+    }
+
+    private static double introselect(double[] a, int left, int right, int k) {
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(right - left + 1));
+        while (right - left > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                Arrays.sort(a, left, right + 1);
+                return a[k];
+            }
+            int mid = (left + right) >>> 1;
+            double pivot = medianOfThree(a[left], a[mid], a[right]);
+            // Three-way partition: [left, lt) < pivot, [lt, gt] == pivot, (gt, right] > pivot
+            int lt = left;
+            int gt = right;
+            int i = left;
+            while (i <= gt) {
+                double v = a[i];
+                if (v < pivot) {
+                    a[i++] = a[lt];
+                    a[lt++] = v;
+                } else if (v > pivot) {
+                    a[i] = a[gt];
+                    a[gt--] = v;
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                right = lt - 1;
+            } else if (k > gt) {
+                left = gt + 1;
+            } else {
+                return pivot;
+            }
+        }
+        Arrays.sort(a, left, right + 1);
+        return a[k];
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        return a < b
+            ? (b < c ? b : Math.max(a, c))
+            : (a < c ? a : Math.max(b, c));
+    }
+
+    private static double bucketSelect(double[] values, int k) {
+        double[] candidates = values;
+        double min = Arrays.stream(values).parallel().min().getAsDouble();
+        double max = Arrays.stream(values).parallel().max().getAsDouble();
+        while (candidates.length >= PARALLEL_THRESHOLD && min < max) {
+            double[] current = candidates;
+            double low = min;
+            double scale = BUCKETS / (max - min);
+            int chunks = Math.max(1, Math.min(current.length / 65536, 4 * Runtime.getRuntime().availableProcessors()));
+            int chunkSize = (current.length + chunks - 1) / chunks;
+
+            // Per-chunk histograms, built in parallel and then summed
+            int[][] histograms = new int[chunks][];
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int[] histogram = new int[BUCKETS];
+                int end = Math.min(current.length, (c + 1) * chunkSize);
+                for (int i = c * chunkSize; i < end; i++) {
+                    histogram[bucket(current[i], low, scale)]++;
+                }
+                histograms[c] = histogram;
+            });
+            int target = 0;
+            int below = 0;
+            while (true) {
+                int count = 0;
+                for (int[] histogram : histograms) {
+                    count += histogram[target];
+                }
+                if (below + count > k) {
+                    break;
+                }
+                below += count;
+                target++;
+            }
+
+            // Copy the target bucket out, each chunk into its own slice
+            int[] offsets = new int[chunks + 1];
+            for (int c = 0; c < chunks; c++) {
+                offsets[c + 1] = offsets[c] + histograms[c][target];
+            }
+            double[] next = new double[offsets[chunks]];
+            int bucket = target;
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int out = offsets[c];
+                int end = Math.min(current.length, (c + 1) * chunkSize);
+                for (int i = c * chunkSize; i < end; i++) {
+                    if (bucket(current[i], low, scale) == bucket) {
+                        next[out++] = current[i];
+                    }
+                }
+            });
+
+            if (next.length == current.length) {
+                // Could not narrow (all remaining values share one bucket)
+                break;
+            }
+            k -= below;
+            candidates = next;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            for (double v : next) {
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+        }
+        if (min == max) {
+            return min;
+        }
+        double[] work = candidates == values ? values.clone() : candidates;
+        return introselect(work, 0, work.length - 1, k);
+    }
+
+    private static int bucket(double v, double min, double scale) {
+        return Math.min(BUCKETS - 1, (int) ((v - min) * scale));
+    }
+}
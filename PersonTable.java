@@ -0,0 +1,334 @@
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Columnar (struct-of-arrays) copy of a Person/Employee list.
+// age and salary are plain primitive columns; name and department are
+// dictionary coded, so each row only stores an int code into a small
+// table of distinct strings. Queries that touch one column walk one array.
+public class PersonTable {
+    // Width of the salary brackets in salaryBracketBitmaps() (Problem 51)
+    public static final int SALARY_BRACKET = 20000;
+
+    private final int size;
+    private final int[] age;
+    private final double[] salary;
+    private final int[] nameCode;
+    private final String[] nameDictionary;
+    private final int[] departmentCode;
+    private final String[] departmentDictionary;
+    private volatile SortedIndex salaryIndex;
+    private volatile SortedIndex ageIndex;
+    private volatile BitmapIndex<String> departmentBitmaps;
+    private volatile BitmapIndex<Integer> ageGroupBitmaps;
+    private volatile BitmapIndex<Integer> salaryBracketBitmaps;
+
+    private PersonTable(Builder builder) {
+        this.size = builder.size;
+        this.age = Arrays.copyOf(builder.age, builder.size);
+        this.salary = Arrays.copyOf(builder.salary, builder.size);
+        this.nameCode = Arrays.copyOf(builder.nameCode, builder.size);
+        this.nameDictionary = builder.names.toArray(new String[0]);
+        this.departmentCode = Arrays.copyOf(builder.departmentCode, builder.size);
+        this.departmentDictionary = builder.departments.toArray(new String[0]);
+    }
+
+    public static Builder builder() {
+        return new Builder(16);
+    }
+
+    public static Builder builder(int expectedRows) {
+        return new Builder(expectedRows);
+    }
+
+    public static <T> PersonTable from(Collection<T> rows,
+                                       Function<T, String> name,
+                                       ToIntFunction<T> age,
+                                       ToDoubleFunction<T> salary,
+                                       Function<T, String> department) {
+        Builder builder = new Builder(rows.size());
+        for (T row : rows) {
+            builder.add(name.apply(row), age.applyAsInt(row), salary.applyAsDouble(row), department.apply(row));
+        }
+        return builder.build();
+    }
+
+    public static PersonTable fromPersons(Collection<Person> persons) {
+        return from(persons, Person::getName, Person::getAge, Person::getSalary, Person::getDepartment);
+    }
+
+    public static PersonTable fromEmployees(Collection<Employee> employees) {
+        return from(employees, Employee::getName, Employee::getAge, Employee::getSalary, Employee::getDepartment);
+    }
+
+    // ---------- row access ----------
+
+    public int size() { return size; }
+    public int getAge(int row) { return age[row]; }
+    public double getSalary(int row) { return salary[row]; }
+    public String getName(int row) { return nameDictionary[nameCode[row]]; }
+    public String getDepartment(int row) { return departmentDictionary[departmentCode[row]]; }
+    public int getDepartmentCode(int row) { return departmentCode[row]; }
+
+    public Person toPerson(int row) {
+        return new Person(getName(row), age[row], salary[row], getDepartment(row));
+    }
+
+    // ---------- column access (backing arrays, not copies; do not modify) ----------
+
+    public int[] ages() { return age; }
+    public double[] salaries() { return salary; }
+    public int[] departmentCodes() { return departmentCode; }
+    public int[] nameCodes() { return nameCode; }
+
+    public int departmentCount() { return departmentDictionary.length; }
+    public String departmentName(int code) { return departmentDictionary[code]; }
+    public int nameCount() { return nameDictionary.length; }
+    public String nameOf(int code) { return nameDictionary[code]; }
+
+    // Returns -1 if the department does not occur in the table
+    public int departmentCodeOf(String department) {
+        for (int code = 0; code < departmentDictionary.length; code++) {
+            if (Objects.equals(departmentDictionary[code], department)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    // ---------- queries ----------
+
+    // Problem 22: total salary expenditure
+    public double totalSalary() {
+        return SalaryKernels.sum(salary);
+    }
+
+    // Problem 3: average salary (0.0 when empty, like average().orElse(0.0))
+    public double averageSalary() {
+        return size == 0 ? 0.0 : totalSalary() / size;
+    }
+
+    // Problem 19: salary summary statistics
+    public DoubleSummaryStatistics salaryStatistics() {
+        if (size == 0) {
+            return new DoubleSummaryStatistics();
+        }
+        return new DoubleSummaryStatistics(size, SalaryKernels.min(salary), SalaryKernels.max(salary),
+            SalaryKernels.sum(salary));
+    }
+
+    // Problem 73
+    public double minSalary() { return SalaryKernels.min(salary); }
+    public double maxSalary() { return SalaryKernels.max(salary); }
+
+    // Problem 72: age summary statistics
+    public IntSummaryStatistics ageStatistics() {
+        if (size == 0) {
+            return new IntSummaryStatistics();
+        }
+        return new IntSummaryStatistics(size, SalaryKernels.min(age), SalaryKernels.max(age), SalaryKernels.sum(age));
+    }
+
+    // Problem 6: total salary by department, indexed by department code
+    public double[] totalSalaryByDepartmentCode() {
+        return SalaryKernels.sumByGroup(salary, departmentCode, departmentDictionary.length);
+    }
+
+    // Problem 92: same result shape as groupingBy(getDepartment, summarizingDouble(getSalary))
+    public Map<String, DoubleSummaryStatistics> salaryStatisticsByDepartment() {
+        DoubleSummaryStatistics[] stats =
+            SalaryKernels.statisticsByGroup(salary, departmentCode, departmentDictionary.length);
+        Map<String, DoubleSummaryStatistics> result = new HashMap<>();
+        for (int code = 0; code < stats.length; code++) {
+            result.put(departmentDictionary[code], stats[code]);
+        }
+        return result;
+    }
+
+    // Problem 6: same result shape as groupingBy(getDepartment, summingDouble(getSalary))
+    public Map<String, Double> totalSalaryByDepartment() {
+        double[] totals = totalSalaryByDepartmentCode();
+        Map<String, Double> result = new HashMap<>();
+        for (int code = 0; code < totals.length; code++) {
+            result.put(departmentDictionary[code], totals[code]);
+        }
+        return result;
+    }
+
+    // Problem 34: average salary of employees older than minAgeExclusive
+    public double averageSalaryWhereAgeAbove(int minAgeExclusive) {
+        if (minAgeExclusive == Integer.MAX_VALUE) {
+            return 0.0;
+        }
+        int count = SalaryKernels.countWhere(age, minAgeExclusive + 1, Integer.MAX_VALUE);
+        return count == 0 ? 0.0 : SalaryKernels.sumWhere(salary, age, minAgeExclusive + 1, Integer.MAX_VALUE) / count;
+    }
+
+    // Problems 42 and 60: exact salary quantile (0.5 = median) via selection
+    public double salaryQuantile(double q) {
+        return Percentiles.quantile(salary, q, size >= Percentiles.PARALLEL_THRESHOLD);
+    }
+
+    public double ageQuantile(double q) {
+        return Percentiles.quantile(Percentiles.toDoubles(age), q, size >= Percentiles.PARALLEL_THRESHOLD);
+    }
+
+    // Problem 15: k-th highest distinct salary (k = 2 is the second highest)
+    public OptionalDouble kthHighestDistinctSalary(int k) {
+        return Percentiles.kthLargestDistinct(salary, k);
+    }
+
+    // Salary-sorted index; range sums/averages are over salary (Problem 20)
+    public SortedIndex salaryIndex() {
+        SortedIndex index = salaryIndex;
+        if (index == null) {
+            salaryIndex = index = new SortedIndex(salary, salary);
+        }
+        return index;
+    }
+
+    // Age-sorted index; range sums/averages are over salary (Problems 7, 34, 50)
+    public SortedIndex ageIndex() {
+        SortedIndex index = ageIndex;
+        if (index == null) {
+            ageIndex = index = new SortedIndex(age, salary);
+        }
+        return index;
+    }
+
+    // Rows per department (Problems 61, 66)
+    public BitmapIndex<String> departmentBitmaps() {
+        BitmapIndex<String> index = departmentBitmaps;
+        if (index == null) {
+            departmentBitmaps = index = BitmapIndex.build(size, row -> departmentDictionary[departmentCode[row]]);
+        }
+        return index;
+    }
+
+    // Rows per age decade, keyed by its first year: 20 = 20-29, 30 = 30-39 (Problems 16, 32, 61)
+    public BitmapIndex<Integer> ageGroupBitmaps() {
+        BitmapIndex<Integer> index = ageGroupBitmaps;
+        if (index == null) {
+            ageGroupBitmaps = index = BitmapIndex.build(size, row -> Math.floorDiv(age[row], 10) * 10);
+        }
+        return index;
+    }
+
+    // Rows per SALARY_BRACKET, keyed by its lower bound (Problems 51, 61, 66)
+    public BitmapIndex<Integer> salaryBracketBitmaps() {
+        BitmapIndex<Integer> index = salaryBracketBitmaps;
+        if (index == null) {
+            salaryBracketBitmaps = index = BitmapIndex.build(size,
+                row -> (int) Math.floor(salary[row] / SALARY_BRACKET) * SALARY_BRACKET);
+        }
+        return index;
+    }
+
+    // Rows with minAge <= age <= maxAge: whole decades from ageGroupBitmaps(),
+    // row checks only in the (at most two) decades at the ends
+    public RoaringBitmap ageBetween(int minAge, int maxAge) {
+        return ageGroupBitmaps().matching(
+            decade -> decade >= minAge && decade + 9 <= maxAge,
+            decade -> decade <= maxAge && decade + 9 >= minAge,
+            row -> age[row] >= minAge && age[row] <= maxAge);
+    }
+
+    // Rows with salary > minSalary: whole brackets from salaryBracketBitmaps(),
+    // row checks only in the bracket containing minSalary
+    public RoaringBitmap salaryAbove(double minSalary) {
+        return salaryBracketBitmaps().matching(
+            bracket -> bracket > minSalary,
+            bracket -> bracket + SALARY_BRACKET > minSalary,
+            row -> salary[row] > minSalary);
+    }
+
+    public RoaringBitmap allRows() {
+        return RoaringBitmap.range(0, size);
+    }
+
+    // ---------- streams (sequential; call parallel() to split on block boundaries) ----------
+
+    public IntStream rows() {
+        return StreamSupport.intStream(RowSpliterators.rows(size), false);
+    }
+
+    public DoubleStream salaryStream() {
+        return RowSpliterators.doubleStream(salary, false);
+    }
+
+    public IntStream ageStream() {
+        return RowSpliterators.intStream(age, false);
+    }
+
+    public Stream<Person> personStream() {
+        return StreamSupport.stream(RowSpliterators.rows(size, this::toPerson, Spliterator.NONNULL), false);
+    }
+
+    public static class Builder {
+        private int size;
+        private int[] age;
+        private double[] salary;
+        private int[] nameCode;
+        private int[] departmentCode;
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> nameCodes = new HashMap<>();
+        private final List<String> departments = new ArrayList<>();
+        private final Map<String, Integer> departmentCodes = new HashMap<>();
+
+        private Builder(int expectedRows) {
+            int capacity = Math.max(expectedRows, 1);
+            age = new int[capacity];
+            salary = new double[capacity];
+            nameCode = new int[capacity];
+            departmentCode = new int[capacity];
+        }
+
+        // Same argument order as new Person(...) / new Employee(...)
+        public Builder add(String name, int age, double salary, String department) {
+            if (size == this.age.length) {
+                grow();
+            }
+            this.age[size] = age;
+            this.salary[size] = salary;
+            this.nameCode[size] = encode(name, names, nameCodes);
+            this.departmentCode[size] = encode(department, departments, departmentCodes);
+            size++;
+            return this;
+        }
+
+        public Builder add(Person p) {
+            return add(p.getName(), p.getAge(), p.getSalary(), p.getDepartment());
+        }
+
+        public Builder add(Employee e) {
+            return add(e.getName(), e.getAge(), e.getSalary(), e.getDepartment());
+        }
+
+        public PersonTable build() {
+            return new PersonTable(this);
+        }
+
+        private static int encode(String value, List<String> dictionary, Map<String, Integer> codes) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        private void grow() {
+            int capacity = age.length * 2;
+            age = Arrays.copyOf(age, capacity);
+            salary = Arrays.copyOf(salary, capacity);
+            nameCode = Arrays.copyOf(nameCode, capacity);
+            departmentCode = Arrays.copyOf(departmentCode, capacity);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.*;
+import java.util.function.DoubleSupplier;
+import java.util.stream.Collectors;
+
+// Compares the List<Person> stream pipelines of Problems 3, 6, 19, 22 and 34
+// with the primitive loops in PersonTable.
+// Usage: java PersonTableBenchmark [rows] [departments]
+public class PersonTableBenchmark {
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int departments = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        List<Person> persons = BenchmarkData.generate(rows, departments, 42);
+        PersonTable table = PersonTable.fromPersons(persons);
+        BenchmarkRunner runner = BenchmarkRunner.defaults();
+
+        System.out.println("===== PersonTable vs List<Person> streams =====");
+        System.out.println("Rows: " + rows + ", Departments: " + departments + "\n");
+
+        compare(runner, "Problem 3  average salary",
+            () -> persons.stream().mapToDouble(Person::getSalary).average().orElse(0.0),
+            table::averageSalary);
+        compare(runner, "Problem 6  total salary by department",
+            () -> persons.stream()
+                .collect(Collectors.groupingBy(Person::getDepartment, Collectors.summingDouble(Person::getSalary)))
+                .size(),
+            () -> table.totalSalaryByDepartment().size());
+        compare(runner, "Problem 19 salary statistics",
+            () -> persons.stream().mapToDouble(Person::getSalary).summaryStatistics().getMax(),
+            () -> table.salaryStatistics().getMax());
+        compare(runner, "Problem 22 total salary",
+            () -> persons.stream().mapToDouble(Person::getSalary).sum(),
+            table::totalSalary);
+        compare(runner, "Problem 34 average salary above 30",
+            () -> persons.stream().filter(p -> p.getAge() > 30).mapToDouble(Person::getSalary).average().orElse(0.0),
+            () -> table.averageSalaryWhereAgeAbove(30));
+    }
+
+    private static void compare(BenchmarkRunner runner, String label, DoubleSupplier stream, DoubleSupplier table) {
+        double streamNanos = runner.run(label + " stream", stream).getMeanNanos();
+        double tableNanos = runner.run(label + " table", table).getMeanNanos();
+        System.out.println(String.format("  %-40s stream: %10.3f ms   table: %10.3f ms   speedup: %.1fx",
+            label, streamNanos / 1e6, tableNanos / 1e6, streamNanos / tableNanos));
+    }
+}
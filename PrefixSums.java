@@ -0,0 +1,120 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Running totals (inclusive scans) over primitive columns, usually salaries
+// already in sorted order (SortedIndex.keys()).
+//
+// Two-pass blocked scan: every BLOCK-sized block is summed in parallel, the
+// block sums are scanned sequentially into starting offsets, and then every
+// block is scanned in parallel from its offset. Block boundaries depend only
+// on the array length, never on the number of threads, so the result is
+// the same on every run and machine. Inputs of up to one block are a plain
+// left-to-right loop. For longer fractional inputs the rounding can differ
+// from that loop in the last bits; whole-number salaries are exact below 2^53.
+//
+// The parallel passes run in whichever ForkJoinPool calls them, so a
+// QueryExecutor keeps payroll runs off the common pool.
+public class PrefixSums {
+    static final int BLOCK = 1 << 14;
+
+    private PrefixSums() {
+    }
+
+    // totals[i] = values[0] + ... + values[i]
+    public static double[] runningTotals(double[] values) {
+        int n = values.length;
+        int blocks = blockCount(n);
+        double[] offsets = new double[blocks];
+        parallelBlocks(blocks).forEach(b -> {
+            double sum = 0;
+            for (int i = b * BLOCK, end = blockEnd(b, n); i < end; i++) {
+                sum += values[i];
+            }
+            offsets[b] = sum;
+        });
+        exclusiveScan(offsets);
+
+        double[] totals = new double[n];
+        parallelBlocks(blocks).forEach(b -> {
+            double running = offsets[b];
+            for (int i = b * BLOCK, end = blockEnd(b, n); i < end; i++) {
+                running += values[i];
+                totals[i] = running;
+            }
+        });
+        return totals;
+    }
+
+    // averages[i] = mean of values[0..i]
+    public static double[] runningAverages(double[] values) {
+        double[] averages = runningTotals(values);
+        parallelBlocks(blockCount(averages.length)).forEach(b -> {
+            for (int i = b * BLOCK, end = blockEnd(b, averages.length); i < end; i++) {
+                averages[i] /= i + 1;
+            }
+        });
+        return averages;
+    }
+
+    // totals[i] = sum of values[j] for j <= i with groups[j] == groups[i],
+    // e.g. each employee's running total within their department
+    public static double[] runningTotalsByGroup(double[] values, int[] groups, int groupCount) {
+        if (values.length != groups.length) {
+            throw new IllegalArgumentException("Columns differ in length: " + values.length + " and " + groups.length);
+        }
+        int n = values.length;
+        int blocks = blockCount(n);
+        if ((long) blocks * groupCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many groups for " + n + " rows: " + groupCount);
+        }
+        // offsets[b * groupCount + g]: sum of group g in block b, then the
+        // total of group g before block b
+        double[] offsets = new double[blocks * groupCount];
+        parallelBlocks(blocks).forEach(b -> {
+            int base = b * groupCount;
+            for (int i = b * BLOCK, end = blockEnd(b, n); i < end; i++) {
+                offsets[base + groups[i]] += values[i];
+            }
+        });
+        double[] running = new double[groupCount];
+        for (int b = 0; b < blocks; b++) {
+            int base = b * groupCount;
+            for (int g = 0; g < groupCount; g++) {
+                double sum = offsets[base + g];
+                offsets[base + g] = running[g];
+                running[g] += sum;
+            }
+        }
+
+        double[] totals = new double[n];
+        parallelBlocks(blocks).forEach(b -> {
+            double[] local = Arrays.copyOfRange(offsets, b * groupCount, (b + 1) * groupCount);
+            for (int i = b * BLOCK, end = blockEnd(b, n); i < end; i++) {
+                totals[i] = local[groups[i]] += values[i];
+            }
+        });
+        return totals;
+    }
+
+    private static void exclusiveScan(double[] sums) {
+        double running = 0;
+        for (int b = 0; b < sums.length; b++) {
+            double sum = sums[b];
+            sums[b] = running;
+            running += sum;
+        }
+    }
+
+    private static IntStream parallelBlocks(int blocks) {
+        IntStream range = IntStream.range(0, blocks);
+        return blocks > 1 ? range.parallel() : range;
+    }
+
+    private static int blockCount(int n) {
+        return (n + BLOCK - 1) / BLOCK;
+    }
+
+    private static int blockEnd(int block, int n) {
+        return Math.min(n, (block + 1) * BLOCK);
+    }
+}
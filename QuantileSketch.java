@@ -0,0 +1,309 @@
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+// Approximate quantiles over an unbounded stream in bounded memory (KLL sketch).
+// Values are kept in a stack of levels; an item on level h stands for 2^h
+// inputs. When the sketch is full, one level is sorted and every other item
+// is promoted to the next level. Capacities shrink by 2/3 per level going
+// down from the top, so total memory stays around 3 * k items regardless of
+// how many values were added.
+//
+// Accuracy is set by k: the rank error is about 1.7/k (k = 200 gives ~1%).
+// Sketches with the same k merge losslessly with respect to that bound, so
+// parallel splits and shards can each keep their own sketch and be combined.
+//
+// Per-department p50/p90/p99 over a feed:
+//   Map<String, QuantileSketch> byDept = feed.collect(Collectors.groupingBy(
+//       Person::getDepartment, QuantileSketch.collector(Person::getSalary)));
+//   byDept.get("IT").quantiles(0.5, 0.9, 0.99);
+public class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+
+    private final int k;
+    private double[][] levels;
+    private int[] sizes;
+    private int numLevels;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long randomState = 0x9E3779B97F4A7C15L;
+    // Cached because both are checked on every update
+    private int retained;
+    private int totalCapacity;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8: " + k);
+        }
+        this.k = k;
+        this.levels = new double[][] { new double[k] };
+        this.sizes = new int[1];
+        this.numLevels = 1;
+        this.totalCapacity = capacity(0);
+    }
+
+    public static <T> Collector<T, QuantileSketch, QuantileSketch> collector(ToDoubleFunction<? super T> value) {
+        return collector(value, DEFAULT_K);
+    }
+
+    public static <T> Collector<T, QuantileSketch, QuantileSketch> collector(ToDoubleFunction<? super T> value, int k) {
+        return Collector.of(
+            () -> new QuantileSketch(k),
+            (sketch, t) -> sketch.update(value.applyAsDouble(t)),
+            QuantileSketch::merge,
+            Collector.Characteristics.UNORDERED,
+            Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("NaN cannot be added to a quantile sketch");
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        append(0, value);
+        if (retained > totalCapacity) {
+            compress();
+        }
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge sketches with k=" + k + " and k=" + other.k);
+        }
+        if (other == this || other.count == 0) {
+            return this;
+        }
+        for (int h = 0; h < other.numLevels; h++) {
+            while (numLevels <= h) {
+                addLevel();
+            }
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress();
+        return this;
+    }
+
+    public long getCount() { return count; }
+    public int getK() { return k; }
+
+    public double getMin() {
+        checkNotEmpty();
+        return min;
+    }
+
+    public double getMax() {
+        checkNotEmpty();
+        return max;
+    }
+
+    // Approximate value at quantile q in [0, 1]; q = 0 and q = 1 are exact
+    public double quantile(double q) {
+        return quantiles(q)[0];
+    }
+
+    public double[] quantiles(double... qs) {
+        checkNotEmpty();
+        Sorted sorted = sorted();
+        double[] result = new double[qs.length];
+        for (int j = 0; j < qs.length; j++) {
+            double q = qs[j];
+            if (q < 0 || q > 1 || Double.isNaN(q)) {
+                throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+            }
+            if (q == 0) {
+                result[j] = min;
+            } else if (q == 1) {
+                result[j] = max;
+            } else {
+                long target = (long) Math.ceil(q * count);
+                long cumulative = 0;
+                int i = 0;
+                while (i < sorted.values.length - 1 && cumulative + sorted.weights[i] < target) {
+                    cumulative += sorted.weights[i++];
+                }
+                result[j] = sorted.values[i];
+            }
+        }
+        return result;
+    }
+
+    // Approximate fraction of values <= value
+    public double rank(double value) {
+        checkNotEmpty();
+        long below = 0;
+        for (int h = 0; h < numLevels; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                if (levels[h][i] <= value) {
+                    below += 1L << h;
+                }
+            }
+        }
+        return (double) below / count;
+    }
+
+    // Number of items held, which is what bounds memory
+    public int retained() {
+        return retained;
+    }
+
+    // For shipping a sketch to another shard; restore with fromByteArray
+    public byte[] toByteArray() {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 8 + 8 + 8 + 8 + 4 * numLevels + 8 * retained());
+        buffer.putInt(k).putInt(numLevels).putLong(count).putDouble(min).putDouble(max).putLong(randomState);
+        for (int h = 0; h < numLevels; h++) {
+            buffer.putInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) {
+                buffer.putDouble(levels[h][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static QuantileSketch fromByteArray(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        QuantileSketch sketch = new QuantileSketch(buffer.getInt());
+        int numLevels = buffer.getInt();
+        sketch.count = buffer.getLong();
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+        sketch.randomState = buffer.getLong();
+        for (int h = 0; h < numLevels; h++) {
+            if (h > 0) {
+                sketch.addLevel();
+            }
+            int size = buffer.getInt();
+            for (int i = 0; i < size; i++) {
+                sketch.append(h, buffer.getDouble());
+            }
+        }
+        return sketch;
+    }
+
+    @Override
+    public String toString() {
+        if (count == 0) {
+            return "QuantileSketch[empty]";
+        }
+        double[] q = quantiles(0.5, 0.9, 0.99);
+        return String.format("QuantileSketch[n=%d, p50=%.2f, p90=%.2f, p99=%.2f]", count, q[0], q[1], q[2]);
+    }
+
+    private void checkNotEmpty() {
+        if (count == 0) {
+            throw new NoSuchElementException("Sketch is empty");
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = numLevels - level - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(2.0 / 3.0, depth)));
+    }
+
+    private int computeTotalCapacity() {
+        int total = 0;
+        for (int h = 0; h < numLevels; h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+
+    // Compacts the lowest full level until the sketch fits its capacity
+    private void compress() {
+        while (retained > totalCapacity) {
+            for (int h = 0; h < numLevels; h++) {
+                if (sizes[h] >= capacity(h)) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void compact(int h) {
+        if (h + 1 == numLevels) {
+            addLevel();
+        }
+        double[] buffer = levels[h];
+        int n = sizes[h];
+        Arrays.sort(buffer, 0, n);
+        // With an odd count the smallest item stays behind so no weight is lost
+        int start = n & 1;
+        for (int i = start + nextBit(); i < n; i += 2) {
+            append(h + 1, buffer[i]);
+        }
+        retained -= n - start;
+        sizes[h] = start;
+    }
+
+    private void append(int h, double value) {
+        if (sizes[h] == levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], Math.max(8, levels[h].length * 2));
+        }
+        levels[h][sizes[h]++] = value;
+        retained++;
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, numLevels + 1);
+        sizes = Arrays.copyOf(sizes, numLevels + 1);
+        levels[numLevels] = new double[8];
+        numLevels++;
+        totalCapacity = computeTotalCapacity();
+    }
+
+    // xorshift64: deterministic, so the same input order gives the same sketch
+    private int nextBit() {
+        randomState ^= randomState << 13;
+        randomState ^= randomState >>> 7;
+        randomState ^= randomState << 17;
+        return (int) (randomState >>> 63);
+    }
+
+    // All retained items in value order with their weights
+    private Sorted sorted() {
+        int total = retained();
+        double[] values = new double[total];
+        long[] weights = new long[total];
+        double[][] sortedLevels = new double[numLevels][];
+        int[] positions = new int[numLevels];
+        for (int h = 0; h < numLevels; h++) {
+            sortedLevels[h] = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(sortedLevels[h]);
+        }
+        for (int out = 0; out < total; out++) {
+            int best = -1;
+            for (int h = 0; h < numLevels; h++) {
+                if (positions[h] < sortedLevels[h].length
+                        && (best < 0 || sortedLevels[h][positions[h]] < sortedLevels[best][positions[best]])) {
+                    best = h;
+                }
+            }
+            values[out] = sortedLevels[best][positions[best]++];
+            weights[out] = 1L << best;
+        }
+        return new Sorted(values, weights);
+    }
+
+    private static class Sorted {
+        final double[] values;
+        final long[] weights;
+
+        Sorted(double[] values, long[] weights) {
+            this.values = values;
+            this.weights = weights;
+        }
+    }
+}
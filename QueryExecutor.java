@@ -0,0 +1,342 @@
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Runs analytics queries on a dedicated, named ForkJoinPool instead of
+// ForkJoinPool.commonPool(). A parallel stream whose terminal operation
+// starts on a worker of this pool forks its subtasks into the same pool, so
+// reports neither compete with other parallel work in the JVM nor starve it.
+// Workers are named "<name>-worker-<n>" (see Problem 74).
+//
+// Cancellation is cooperative. cancel() or a passed deadline makes
+// Query.get() throw CancellationException at once. The query itself stops
+// at its next checkpoint: QueryContext.checkCancelled(), or every
+// CHECK_INTERVAL elements of a stream opened through the context.
+//
+//   try (QueryExecutor reports = QueryExecutor.create("reports", 4)) {
+//       double total = reports.run(() -> table.salaryStream().parallel().sum());
+//       Query<Long> q = reports.submit(ctx -> ctx.stream(persons).filter(...).count(),
+//                                      Duration.ofSeconds(2));
+//       long count = q.get();
+//   }
+public class QueryExecutor implements AutoCloseable {
+    static final int CHECK_INTERVAL = 1024;
+
+    private final String name;
+    private final ForkJoinPool pool;
+
+    private QueryExecutor(String name, int parallelism) {
+        this.name = name;
+        // getPoolIndex() is not assigned until the worker starts
+        AtomicInteger workers = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName(name + "-worker-" + workers.incrementAndGet());
+            return worker;
+        }, null, false);
+    }
+
+    public static QueryExecutor create(String name, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        return new QueryExecutor(name, parallelism);
+    }
+
+    public static QueryExecutor create(String name) {
+        return create(name, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Separate pools per tenant, created on first use
+    public static Tenants perTenant(String name, int parallelismPerTenant) {
+        if (parallelismPerTenant < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelismPerTenant);
+        }
+        return new Tenants(name, parallelismPerTenant);
+    }
+
+    public String name() { return name; }
+
+    public <T> Query<T> submit(Function<QueryContext, T> query) {
+        return submit(query, null);
+    }
+
+    // timeout == null: no deadline
+    public <T> Query<T> submit(Function<QueryContext, T> query, Duration timeout) {
+        QueryContext context = new QueryContext(timeout);
+        ForkJoinTask<T> task = pool.submit(new RecursiveTask<T>() {
+            @Override
+            protected T compute() {
+                context.checkCancelled();
+                return query.apply(context);
+            }
+        });
+        return new Query<>(task, context);
+    }
+
+    public <T> T run(Function<QueryContext, T> query) {
+        return submit(query).get();
+    }
+
+    // For pipelines that need no checkpoints
+    public <T> T run(Supplier<T> query) {
+        return submit(context -> query.get()).get();
+    }
+
+    public Stats stats() {
+        return new Stats(name, pool);
+    }
+
+    // Waits for submitted queries to finish; cancel long ones first
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    public static final class Query<T> {
+        private final ForkJoinTask<T> task;
+        private final QueryContext context;
+
+        Query(ForkJoinTask<T> task, QueryContext context) {
+            this.task = task;
+            this.context = context;
+        }
+
+        // Throws CancellationException if cancelled or past the deadline, and
+        // rethrows the query's own unchecked exceptions
+        public T get() {
+            try {
+                if (context.deadline == null) {
+                    return task.get();
+                }
+                return task.get(Math.max(0, context.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                cancel();
+                throw new CancellationException("Query exceeded its deadline");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new CancellationException("Interrupted while waiting for query");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                // Exceptions thrown on another worker come back as a copy
+                // with the original as its cause
+                if (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+                    cause = cause.getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new CompletionException(cause);
+            }
+        }
+
+        public boolean cancel() {
+            context.cancelled = true;
+            return task.cancel(false);
+        }
+
+        public boolean isDone() { return task.isDone(); }
+        public boolean isCancelled() { return task.isCancelled() || context.cancelled; }
+    }
+
+    public static final class QueryContext {
+        private final Long deadline; // System.nanoTime() value, or null
+        private volatile boolean cancelled;
+
+        QueryContext(Duration timeout) {
+            this.deadline = timeout == null ? null : System.nanoTime() + timeout.toNanos();
+        }
+
+        public boolean isCancelled() {
+            if (!cancelled && deadline != null && System.nanoTime() - deadline >= 0) {
+                cancelled = true;
+            }
+            return cancelled;
+        }
+
+        public void checkCancelled() {
+            if (isCancelled()) {
+                throw new CancellationException("Query cancelled");
+            }
+        }
+
+        // Parallel stream over the list that stops at the next checkpoint
+        // once the query is cancelled
+        public <T> Stream<T> stream(List<T> rows) {
+            Spliterator<T> source = rows instanceof RandomAccess ? RowSpliterators.of(rows) : rows.spliterator();
+            return StreamSupport.stream(guard(source), true);
+        }
+
+        // Parallel stream of table row ids, e.g. rows(table).mapToDouble(table::getSalary)
+        public IntStream rows(PersonTable table) {
+            return StreamSupport.intStream(new GuardedInts(RowSpliterators.rows(table.size()), this), true);
+        }
+
+        public <T> Spliterator<T> guard(Spliterator<T> source) {
+            return new Guarded<>(source, this);
+        }
+    }
+
+    public static final class Stats {
+        private final String name;
+        private final int parallelism;
+        private final int poolSize;
+        private final int activeThreads;
+        private final int runningThreads;
+        private final int queuedSubmissions;
+        private final long queuedTasks;
+        private final long steals;
+
+        Stats(String name, ForkJoinPool pool) {
+            this.name = name;
+            this.parallelism = pool.getParallelism();
+            this.poolSize = pool.getPoolSize();
+            this.activeThreads = pool.getActiveThreadCount();
+            this.runningThreads = pool.getRunningThreadCount();
+            this.queuedSubmissions = pool.getQueuedSubmissionCount();
+            this.queuedTasks = pool.getQueuedTaskCount();
+            this.steals = pool.getStealCount();
+        }
+
+        public String getName() { return name; }
+        public int getParallelism() { return parallelism; }
+        public int getPoolSize() { return poolSize; }
+        public int getActiveThreads() { return activeThreads; }
+        public int getRunningThreads() { return runningThreads; }
+        // Queries not yet picked up by a worker
+        public int getQueuedSubmissions() { return queuedSubmissions; }
+        // Forked subtasks waiting in worker queues
+        public long getQueuedTasks() { return queuedTasks; }
+        public long getQueueDepth() { return queuedSubmissions + queuedTasks; }
+        public long getSteals() { return steals; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: parallelism=%d threads=%d active=%d running=%d queued=%d+%d steals=%d",
+                name, parallelism, poolSize, activeThreads, runningThreads, queuedSubmissions, queuedTasks, steals);
+        }
+    }
+
+    public static final class Tenants implements AutoCloseable {
+        private final String name;
+        private final int parallelismPerTenant;
+        private final ConcurrentMap<String, QueryExecutor> executors = new ConcurrentHashMap<>();
+
+        Tenants(String name, int parallelismPerTenant) {
+            this.name = name;
+            this.parallelismPerTenant = parallelismPerTenant;
+        }
+
+        public QueryExecutor forTenant(String tenant) {
+            return executors.computeIfAbsent(tenant, t -> new QueryExecutor(name + "-" + t, parallelismPerTenant));
+        }
+
+        public Map<String, Stats> stats() {
+            Map<String, Stats> stats = new TreeMap<>();
+            executors.forEach((tenant, executor) -> stats.put(tenant, executor.stats()));
+            return stats;
+        }
+
+        @Override
+        public void close() {
+            executors.values().forEach(QueryExecutor::close);
+        }
+    }
+
+    // Checks for cancellation at every split and every CHECK_INTERVAL elements
+    private static final class Guarded<T> implements Spliterator<T> {
+        private final Spliterator<T> source;
+        private final QueryContext context;
+
+        Guarded(Spliterator<T> source, QueryContext context) {
+            this.source = source;
+            this.context = context;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            context.checkCancelled();
+            Spliterator<T> prefix = source.trySplit();
+            return prefix == null ? null : new Guarded<>(prefix, context);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            return source.tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            boolean more = true;
+            while (more) {
+                context.checkCancelled();
+                for (int i = 0; i < CHECK_INTERVAL && more; i++) {
+                    more = source.tryAdvance(action);
+                }
+            }
+        }
+
+        @Override
+        public long estimateSize() { return source.estimateSize(); }
+
+        @Override
+        public int characteristics() { return source.characteristics(); }
+
+        @Override
+        public Comparator<? super T> getComparator() { return source.getComparator(); }
+    }
+
+    private static final class GuardedInts implements Spliterator.OfInt {
+        private final Spliterator.OfInt source;
+        private final QueryContext context;
+
+        GuardedInts(Spliterator.OfInt source, QueryContext context) {
+            this.source = source;
+            this.context = context;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            context.checkCancelled();
+            OfInt prefix = source.trySplit();
+            return prefix == null ? null : new GuardedInts(prefix, context);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            return source.tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            boolean more = true;
+            while (more) {
+                context.checkCancelled();
+                for (int i = 0; i < CHECK_INTERVAL && more; i++) {
+                    more = source.tryAdvance(action);
+                }
+            }
+        }
+
+        @Override
+        public long estimateSize() { return source.estimateSize(); }
+
+        @Override
+        public int characteristics() { return source.characteristics(); }
+
+        @Override
+        public Comparator<? super Integer> getComparator() { return source.getComparator(); }
+    }
+}
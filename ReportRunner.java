@@ -0,0 +1,124 @@
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+
+// Computes report sections as independent tasks, one virtual thread each,
+// and hands the results back in the order the sections were added. Nothing
+// is printed from the tasks, so output is the same as a sequential run.
+//
+// The fan-out is a StructuredTaskScope.ShutdownOnFailure (a preview API in
+// JDK 21, like the FFM classes here, so compile and run with
+// --enable-preview): run() returns only after every section has finished,
+// and the first failing section shuts the scope down, interrupting the
+// rest, and is rethrown to the caller.
+//
+//   ReportRunner.Report report = new ReportRunner()
+//       .section("salary", () -> table.salaryStatistics())
+//       .section("department:HR", () -> renderDepartment("HR"))
+//       .run();
+//   DoubleSummaryStatistics stats = report.get("salary");
+//   report.latencies().forEach(...);
+public class ReportRunner {
+    private final Map<String, Callable<?>> sections = new LinkedHashMap<>();
+
+    public ReportRunner section(String name, Callable<?> task) {
+        if (sections.putIfAbsent(name, task) != null) {
+            throw new IllegalArgumentException("Duplicate section: " + name);
+        }
+        return this;
+    }
+
+    public Report run() {
+        List<String> names = new ArrayList<>(sections.keySet());
+        long[] nanos = new long[names.size()];
+        long start = System.nanoTime();
+        try (StructuredTaskScope.ShutdownOnFailure scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            List<Subtask<?>> subtasks = new ArrayList<>(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                int index = i;
+                Callable<?> task = sections.get(names.get(i));
+                subtasks.add(scope.fork(() -> {
+                    long sectionStart = System.nanoTime();
+                    Object result = task.call();
+                    nanos[index] = System.nanoTime() - sectionStart;
+                    return result;
+                }));
+            }
+            scope.join().throwIfFailed(ReportRunner::rethrow);
+            // join() orders every subtask's writes before these reads
+            Object[] results = new Object[names.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = subtasks.get(i).get();
+            }
+            return new Report(names, results, nanos, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while running report");
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new CompletionException("Report section failed", cause);
+    }
+
+    public static final class Report {
+        private final Map<String, Object> results = new LinkedHashMap<>();
+        private final Map<String, Long> nanos = new LinkedHashMap<>();
+        private final long elapsedNanos;
+
+        Report(List<String> names, Object[] results, long[] nanos, long elapsedNanos) {
+            for (int i = 0; i < names.size(); i++) {
+                this.results.put(names.get(i), results[i]);
+                this.nanos.put(names.get(i), nanos[i]);
+            }
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // Sections in the order they were added
+        public Set<String> sections() {
+            return Collections.unmodifiableSet(results.keySet());
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(String section) {
+            if (!results.containsKey(section)) {
+                throw new IllegalArgumentException("Unknown section: " + section);
+            }
+            return (T) results.get(section);
+        }
+
+        public Duration latency(String section) {
+            Long n = nanos.get(section);
+            if (n == null) {
+                throw new IllegalArgumentException("Unknown section: " + section);
+            }
+            return Duration.ofNanos(n);
+        }
+
+        public Map<String, Duration> latencies() {
+            Map<String, Duration> latencies = new LinkedHashMap<>();
+            nanos.forEach((section, n) -> latencies.put(section, Duration.ofNanos(n)));
+            return latencies;
+        }
+
+        // Wall time of the whole fan-out; less than the sum of the latencies
+        // when sections overlapped
+        public Duration elapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        public String latencyReport() {
+            StringBuilder sb = new StringBuilder();
+            nanos.forEach((section, n) -> sb.append(String.format("%-40s %12.1f us%n", section, n / 1000.0)));
+            sb.append(String.format("%-40s %12.1f us%n", "(elapsed)", elapsedNanos / 1000.0));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormatSymbols;
+import java.util.*;
+
+// Report output that formats straight into one reusable byte buffer and
+// writes it to a channel in large batches, instead of a println per row
+// through the synchronized System.out with concatenation and
+// String.format on every line.
+//
+// Output is byte-for-byte what System.out would print for the same calls:
+//   append(double)          like String.valueOf(double)
+//   appendFixed(v, n)       like String.format("%.nf", v) in the default locale
+//   appendCents(c)          like String.format("%.2f", c / 100.0)
+//   newline()               System.lineSeparator()
+// Text is encoded with the sink's charset; stdout() uses System.out's.
+// Common cases (ASCII text, whole-number doubles, fixed-precision values
+// below 10^7) are formatted without allocating; anything else falls back
+// to the JDK formatting.
+//
+// stdout() writes through whatever System.out is when it is called, so
+// redirection with System.setOut (test harnesses, IDE consoles) still sees
+// the rows, and flushes it after each batch. Anything printed through
+// System.out while the sink still holds buffered rows would come out
+// first, so flush or close the sink before going back to System.out:
+//   try (ReportSink out = ReportSink.stdout()) {
+//       for (Person p : persons) {
+//           out.append("  ").append(p.getName()).append(": ").appendFixed(p.getSalary(), 2).newline();
+//       }
+//   }
+public class ReportSink implements AutoCloseable {
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+    // Fixed-precision fast path only while v * 10^decimals stays below this,
+    // where the distance to a rounding tie is still measurable in a double
+    private static final double FIXED_LIMIT = 1e9;
+    // Closer than this to a tie, rounding must follow Double.toString's
+    // digits exactly, so the JDK formatter decides
+    private static final double TIE_MARGIN = 1e-4;
+
+    private final WritableByteChannel channel;
+    private final boolean ownsChannel;
+    private final PrintStream stream; // stdout(): flushed after each write
+    private final Charset charset;
+    private final boolean asciiCompatible;
+    private final byte[] lineSeparator;
+    private final byte decimalSeparator;
+    private final boolean fastFixed;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    private ReportSink(WritableByteChannel channel, boolean ownsChannel, PrintStream stream, Charset charset) {
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.stream = stream;
+        this.charset = charset;
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+            || charset.equals(StandardCharsets.US_ASCII)
+            || charset.equals(StandardCharsets.ISO_8859_1);
+        this.lineSeparator = System.lineSeparator().getBytes(charset);
+        // String.format("%.2f") uses the default FORMAT locale's separator and digits
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        this.decimalSeparator = (byte) symbols.getDecimalSeparator();
+        this.fastFixed = asciiCompatible && symbols.getZeroDigit() == '0' && symbols.getDecimalSeparator() < 0x80;
+    }
+
+    public static ReportSink stdout() {
+        PrintStream out = System.out;
+        return new ReportSink(Channels.newChannel(out), false, out, out.charset());
+    }
+
+    // The caller keeps ownership of the channel; close() only flushes
+    public static ReportSink to(WritableByteChannel channel, Charset charset) {
+        return new ReportSink(channel, false, null, charset);
+    }
+
+    // Creates or truncates the file; close() closes it
+    public static ReportSink to(Path file) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            return new ReportSink(channel, true, null, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ReportSink append(String s) {
+        if (s == null) {
+            s = "null";
+        }
+        int n = s.length();
+        if (asciiCompatible) {
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    return appendBytes(s.substring(i).getBytes(charset));
+                }
+                if (position == buffer.length) {
+                    flushBuffer();
+                }
+                buffer[position++] = (byte) c;
+            }
+            return this;
+        }
+        return appendBytes(s.getBytes(charset));
+    }
+
+    public ReportSink append(char c) {
+        if (c < 0x80 && asciiCompatible) {
+            ensure(1);
+            buffer[position++] = (byte) c;
+            return this;
+        }
+        return appendBytes(String.valueOf(c).getBytes(charset));
+    }
+
+    public ReportSink append(int v) {
+        return append((long) v);
+    }
+
+    public ReportSink append(long v) {
+        if (v == Long.MIN_VALUE || !asciiCompatible) {
+            return append(Long.toString(v));
+        }
+        ensure(20);
+        if (v < 0) {
+            buffer[position++] = '-';
+            v = -v;
+        }
+        writeDigits(v, 1);
+        return this;
+    }
+
+    // Same text as String.valueOf(v)
+    public ReportSink append(double v) {
+        // Double.toString prints whole numbers below 10^7 as "<digits>.0"
+        if (v == Math.rint(v) && Math.abs(v) < 1e7 && asciiCompatible) {
+            ensure(12);
+            if (Double.doubleToRawLongBits(v) < 0) {
+                buffer[position++] = '-';
+            }
+            writeDigits((long) Math.abs(v), 1);
+            buffer[position++] = '.';
+            buffer[position++] = '0';
+            return this;
+        }
+        return append(Double.toString(v));
+    }
+
+    // Same text as String.format("%." + decimals + "f", v)
+    public ReportSink appendFixed(double v, int decimals) {
+        if (fastFixed && decimals >= 0 && decimals < POWERS_OF_TEN.length
+                && v >= 0 && Double.doubleToRawLongBits(v) >= 0) {
+            double scaled = v * POWERS_OF_TEN[decimals];
+            double floor = Math.floor(scaled);
+            double fraction = scaled - floor;
+            if (scaled < FIXED_LIMIT && Math.abs(fraction - 0.5) > TIE_MARGIN) {
+                long units = (long) floor + (fraction > 0.5 ? 1 : 0);
+                long scale = POWERS_OF_TEN[decimals];
+                ensure(22);
+                writeDigits(units / scale, 1);
+                if (decimals > 0) {
+                    buffer[position++] = decimalSeparator;
+                    writeDigits(units % scale, decimals);
+                }
+                return this;
+            }
+        }
+        return append(String.format("%." + decimals + "f", v));
+    }
+
+    // Same text as String.format("%.2f", cents / 100.0), without the double
+    public ReportSink appendCents(long cents) {
+        if (!fastFixed || cents == Long.MIN_VALUE) {
+            return append(String.format("%.2f", BigDecimal.valueOf(cents, 2)));
+        }
+        ensure(22);
+        if (cents < 0) {
+            buffer[position++] = '-';
+            cents = -cents;
+        }
+        writeDigits(cents / 100, 1);
+        buffer[position++] = decimalSeparator;
+        writeDigits(cents % 100, 2);
+        return this;
+    }
+
+    public ReportSink newline() {
+        return appendBytes(lineSeparator);
+    }
+
+    // Writes everything buffered so far
+    public void flush() {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() {
+        try {
+            flushBuffer();
+        } finally {
+            if (ownsChannel) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    // Non-negative v, zero-padded to at least minDigits
+    private void writeDigits(long v, int minDigits) {
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        position = end;
+    }
+
+    private ReportSink appendBytes(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int n = Math.min(bytes.length - offset, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, n);
+            position += n;
+            offset += n;
+        }
+        return this;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.length - position < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() {
+        ByteBuffer pending = ByteBuffer.wrap(buffer, 0, position);
+        try {
+            while (pending.hasRemaining()) {
+                channel.write(pending);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+        if (stream != null) {
+            stream.flush();
+        }
+    }
+}
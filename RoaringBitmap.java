@@ -0,0 +1,663 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+// Compressed set of row ids (Roaring layout).
+// A row id is split into its high 16 bits, which pick a chunk, and its low
+// 16 bits, which are stored in that chunk's container:
+//   array container   sorted char[] of low bits, for chunks of <= 4096 rows
+//   bitmap container  long[1024] (8 KB), for denser chunks
+// A container switches kind whenever its cardinality crosses 4096, which is
+// where the two take the same space. and/or/andNot work container by
+// container on whole words, and every container tracks its cardinality, so
+// counts come from popcounts without visiting any rows.
+//
+// Set operations return new bitmaps and never share containers with their
+// inputs, so a result can still be add()ed to.
+public class RoaringBitmap {
+    static final int ARRAY_MAX = 4096;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public RoaringBitmap() {
+        this.keys = new char[4];
+        this.containers = new Container[4];
+    }
+
+    // rows need not be sorted, but sorted input takes the append path
+    public static RoaringBitmap of(int... rows) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int row : rows) {
+            bitmap.add(row);
+        }
+        return bitmap;
+    }
+
+    // Every row in [from, to), e.g. range(0, table.size()) for "all rows"
+    public static RoaringBitmap range(int from, int to) {
+        if (from < 0 || to < from) {
+            throw new IllegalArgumentException("Invalid range [" + from + ", " + to + ")");
+        }
+        RoaringBitmap bitmap = new RoaringBitmap();
+        int start = from;
+        while (start < to) {
+            int high = start >>> 16;
+            int end = Math.min(to, (high + 1) << 16);
+            BitmapContainer container = new BitmapContainer();
+            container.setRange(start & 0xFFFF, end - (high << 16));
+            bitmap.append((char) high, container.optimize());
+            start = end;
+        }
+        return bitmap;
+    }
+
+    public void add(int row) {
+        if (row < 0) {
+            throw new IllegalArgumentException("Row ids must not be negative: " + row);
+        }
+        char high = (char) (row >>> 16);
+        char low = (char) row;
+        // Rows usually arrive in increasing order, so check the last chunk first
+        int i = size > 0 && keys[size - 1] == high ? size - 1 : indexOf(high);
+        if (i >= 0) {
+            containers[i] = containers[i].add(low);
+        } else {
+            insert(-i - 1, high, new ArrayContainer().add(low));
+        }
+    }
+
+    public boolean contains(int row) {
+        if (row < 0) {
+            return false;
+        }
+        int i = indexOf((char) (row >>> 16));
+        return i >= 0 && containers[i].contains((char) row);
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container c = containers[i].and(other.containers[j]);
+                if (c.cardinality() > 0) {
+                    result.append(keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Same as and(other).cardinality() without building the intersection
+    public long andCardinality(RoaringBitmap other) {
+        long total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Rows in this bitmap but not in other
+    public RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container c = j < other.size && other.keys[j] == keys[i]
+                ? containers[i].andNot(other.containers[j])
+                : containers[i].copy();
+            if (c.cardinality() > 0) {
+                result.append(keys[i], c);
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap copy() {
+        RoaringBitmap result = new RoaringBitmap();
+        for (int i = 0; i < size; i++) {
+            result.append(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    // One pass over all inputs in key order: a key held by one bitmap is
+    // copied, and the containers sharing a key are ORed into one bitmap
+    // container that is counted and optimized once, so each input container
+    // is read once however many bitmaps there are (BitmapIndex ORs every
+    // bin a range covers)
+    public static RoaringBitmap or(Collection<RoaringBitmap> bitmaps) {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, bitmaps.size()),
+            Comparator.comparingInt(Cursor::key));
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap.size > 0) {
+                queue.add(new Cursor(bitmap));
+            }
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        while (!queue.isEmpty()) {
+            Cursor first = queue.poll();
+            char key = first.key();
+            Container container = first.container();
+            if (!queue.isEmpty() && queue.peek().key() == key) {
+                BitmapContainer merged = new BitmapContainer();
+                merged.orWords(container);
+                while (!queue.isEmpty() && queue.peek().key() == key) {
+                    Cursor next = queue.poll();
+                    merged.orWords(next.container());
+                    if (next.advance()) {
+                        queue.add(next);
+                    }
+                }
+                merged.cardinality = merged.recount();
+                result.append(key, merged.optimize());
+            } else {
+                result.append(key, container.copy());
+            }
+            if (first.advance()) {
+                queue.add(first);
+            }
+        }
+        return result;
+    }
+
+    // Rows in increasing order
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public int[] toArray() {
+        int[] rows = new int[Math.toIntExact(cardinality())];
+        int[] position = new int[1];
+        forEach(row -> rows[position[0]++] = row);
+        return rows;
+    }
+
+    public long memoryBytes() {
+        long total = (long) keys.length * Character.BYTES;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].memoryBytes();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        forEach(row -> joiner.add(String.valueOf(row)));
+        return joiner.toString();
+    }
+
+    private int indexOf(char high) {
+        int low = 0;
+        int top = size - 1;
+        while (low <= top) {
+            int mid = (low + top) >>> 1;
+            if (keys[mid] < high) {
+                low = mid + 1;
+            } else if (keys[mid] > high) {
+                top = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void append(char high, Container container) {
+        insert(size, high, container);
+    }
+
+    private void insert(int at, char high, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, at, keys, at + 1, size - at);
+        System.arraycopy(containers, at, containers, at + 1, size - at);
+        keys[at] = high;
+        containers[at] = container;
+        size++;
+    }
+
+    // Position in one bitmap's containers, for or(Collection)
+    private static final class Cursor {
+        private final RoaringBitmap bitmap;
+        private int i;
+
+        Cursor(RoaringBitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+
+        char key() { return bitmap.keys[i]; }
+        Container container() { return bitmap.containers[i]; }
+
+        boolean advance() {
+            return ++i < bitmap.size;
+        }
+    }
+
+    private abstract static class Container {
+        // May return a container of the other kind
+        abstract Container add(char low);
+        abstract boolean contains(char low);
+        abstract int cardinality();
+        abstract Container and(Container other);
+        abstract int andCardinality(Container other);
+        abstract Container or(Container other);
+        abstract Container andNot(Container other);
+        abstract Container copy();
+        abstract void forEach(int base, IntConsumer action);
+        abstract long memoryBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char low) {
+            int at;
+            if (cardinality == 0 || values[cardinality - 1] < low) {
+                at = cardinality;
+            } else {
+                at = Arrays.binarySearch(values, 0, cardinality, low);
+                if (at >= 0) {
+                    return this;
+                }
+                at = -at - 1;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, at, values, at + 1, cardinality - at);
+            values[at] = low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.and(this);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            char[] out = new char[Math.min(cardinality, o.cardinality)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < o.cardinality) {
+                if (values[i] < o.values[j]) {
+                    i++;
+                } else if (values[i] > o.values[j]) {
+                    j++;
+                } else {
+                    out[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.andCardinality(this);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < o.cardinality) {
+                if (values[i] < o.values[j]) {
+                    i++;
+                } else if (values[i] > o.values[j]) {
+                    j++;
+                } else {
+                    n++;
+                    i++;
+                    j++;
+                }
+            }
+            return n;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            if (cardinality + o.cardinality > ARRAY_MAX) {
+                BitmapContainer result = toBitmap();
+                for (int j = 0; j < o.cardinality; j++) {
+                    result.set(o.values[j]);
+                }
+                return result.optimize();
+            }
+            char[] out = new char[cardinality + o.cardinality];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < o.cardinality) {
+                if (j == o.cardinality || (i < cardinality && values[i] < o.values[j])) {
+                    out[n++] = values[i++];
+                } else if (i == cardinality || values[i] > o.values[j]) {
+                    out[n++] = o.values[j++];
+                } else {
+                    out[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[cardinality];
+            int n = 0;
+            if (other instanceof BitmapContainer) {
+                BitmapContainer o = (BitmapContainer) other;
+                for (int i = 0; i < cardinality; i++) {
+                    if (!o.contains(values[i])) {
+                        out[n++] = values[i];
+                    }
+                }
+                return new ArrayContainer(out, n);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            int j = 0;
+            for (int i = 0; i < cardinality; i++) {
+                while (j < o.cardinality && o.values[j] < values[i]) {
+                    j++;
+                }
+                if (j == o.cardinality || o.values[j] != values[i]) {
+                    out[n++] = values[i];
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        long memoryBytes() {
+            return (long) values.length * Character.BYTES;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.set(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[1024];
+        int cardinality;
+
+        @Override
+        Container add(char low) {
+            set(low);
+            return this;
+        }
+
+        void set(char low) {
+            long before = words[low >>> 6];
+            long after = before | (1L << low);
+            words[low >>> 6] = after;
+            if (before != after) {
+                cardinality++;
+            }
+        }
+
+        // ORs other in place without counting; recount() once done
+        void orWords(Container other) {
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                for (int i = 0; i < o.cardinality; i++) {
+                    char low = o.values[i];
+                    words[low >>> 6] |= 1L << low;
+                }
+                return;
+            }
+            long[] o = ((BitmapContainer) other).words;
+            for (int w = 0; w < words.length; w++) {
+                words[w] |= o[w];
+            }
+        }
+
+        // Sets [from, to) with from, to in [0, 65536]
+        void setRange(int from, int to) {
+            for (int i = from; i < to; i++) {
+                words[i >>> 6] |= 1L << i;
+            }
+            cardinality = recount();
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                char[] out = new char[o.cardinality];
+                int n = 0;
+                for (int i = 0; i < o.cardinality; i++) {
+                    if (contains(o.values[i])) {
+                        out[n++] = o.values[i];
+                    }
+                }
+                return new ArrayContainer(out, n);
+            }
+            BitmapContainer o = (BitmapContainer) other;
+            BitmapContainer result = new BitmapContainer();
+            for (int w = 0; w < words.length; w++) {
+                result.words[w] = words[w] & o.words[w];
+            }
+            result.cardinality = result.recount();
+            return result.optimize();
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int n = 0;
+                for (int i = 0; i < o.cardinality; i++) {
+                    if (contains(o.values[i])) {
+                        n++;
+                    }
+                }
+                return n;
+            }
+            BitmapContainer o = (BitmapContainer) other;
+            int n = 0;
+            for (int w = 0; w < words.length; w++) {
+                n += Long.bitCount(words[w] & o.words[w]);
+            }
+            return n;
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer result = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                for (int i = 0; i < o.cardinality; i++) {
+                    result.set(o.values[i]);
+                }
+                return result;
+            }
+            BitmapContainer o = (BitmapContainer) other;
+            for (int w = 0; w < words.length; w++) {
+                result.words[w] |= o.words[w];
+            }
+            result.cardinality = result.recount();
+            return result;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            BitmapContainer result = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                for (int i = 0; i < o.cardinality; i++) {
+                    char low = o.values[i];
+                    if (result.contains(low)) {
+                        result.words[low >>> 6] &= ~(1L << low);
+                        result.cardinality--;
+                    }
+                }
+                return result.optimize();
+            }
+            BitmapContainer o = (BitmapContainer) other;
+            for (int w = 0; w < words.length; w++) {
+                result.words[w] &= ~o.words[w];
+            }
+            result.cardinality = result.recount();
+            return result.optimize();
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer result = new BitmapContainer();
+            System.arraycopy(words, 0, result.words, 0, words.length);
+            result.cardinality = cardinality;
+            return result;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        long memoryBytes() {
+            return (long) words.length * Long.BYTES;
+        }
+
+        int recount() {
+            int n = 0;
+            for (long word : words) {
+                n += Long.bitCount(word);
+            }
+            return n;
+        }
+
+        // Back to an array container once sparse enough
+        Container optimize() {
+            if (cardinality > ARRAY_MAX) {
+                return this;
+            }
+            char[] out = new char[Math.max(cardinality, 1)];
+            int[] n = new int[1];
+            forEach(0, low -> out[n[0]++] = (char) low);
+            return new ArrayContainer(out, cardinality);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Spliterators over index ranges of a dataset: row ids, primitive columns
+// (PersonTable.ages()/salaries()) and rows of a random-access list.
+//
+// Splits happen at multiples of a block (counted from row 0, so every split
+// starts on the same block boundary in every column) and never leave a part
+// smaller than one block. The block is BLOCK_ROWS for inputs of at least
+// MIN_SPLITS blocks: each worker then reads whole cache lines of each
+// column and no two threads write-share a line. Smaller inputs use a
+// smaller power-of-two block, down to a single row, so they can still split
+// into about MIN_SPLITS parts; the 12-row lists of Problems 74, 87 and 89
+// spread across workers like parallelStream() does. Both halves of a split are exact, so
+// SIZED/SUBSIZED hold all the way down and the stream framework can
+// pre-size results (toArray, toList) and split ordered operations by count.
+//
+// Only row ids are reported IMMUTABLE. Columns and row functions belong to
+// the caller, who may still change them (PersonTable hands out its backing
+// arrays), so they get IMMUTABLE or NONNULL only when the caller passes
+// them as additional characteristics, as with Spliterators.spliterator.
+public class RowSpliterators {
+    public static final int BLOCK_ROWS = 1024;
+    static final int MIN_SPLITS = 16;
+
+    private static final int ROW_CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED
+        | Spliterator.SUBSIZED | Spliterator.IMMUTABLE | Spliterator.NONNULL
+        | Spliterator.DISTINCT | Spliterator.SORTED;
+    // Primitive values are never null
+    private static final int COLUMN_CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED
+        | Spliterator.SUBSIZED | Spliterator.NONNULL;
+    // A list can still be changed through set(), and may hold nulls
+    private static final int ELEMENT_CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED
+        | Spliterator.SUBSIZED;
+
+    private RowSpliterators() {
+    }
+
+    // Row ids 0 .. size-1
+    public static Spliterator.OfInt rows(int size) {
+        return new Ints(null, 0, size, blockFor(size), ROW_CHARACTERISTICS);
+    }
+
+    public static Spliterator.OfInt ints(int[] column) {
+        return ints(column, 0);
+    }
+
+    // additionalCharacteristics, e.g. IMMUTABLE if nothing can write the column
+    public static Spliterator.OfInt ints(int[] column, int additionalCharacteristics) {
+        return new Ints(column, 0, column.length, blockFor(column.length),
+            COLUMN_CHARACTERISTICS | additionalCharacteristics);
+    }
+
+    public static Spliterator.OfDouble doubles(double[] column) {
+        return doubles(column, 0);
+    }
+
+    public static Spliterator.OfDouble doubles(double[] column, int additionalCharacteristics) {
+        return new Doubles(column, 0, column.length, blockFor(column.length),
+            COLUMN_CHARACTERISTICS | additionalCharacteristics);
+    }
+
+    // Row i of a dataset, e.g. PersonTable::toPerson
+    public static <T> Spliterator<T> rows(int size, IntFunction<T> row) {
+        return rows(size, row, 0);
+    }
+
+    // additionalCharacteristics, e.g. NONNULL if row never returns null,
+    // IMMUTABLE if the dataset cannot change
+    public static <T> Spliterator<T> rows(int size, IntFunction<T> row, int additionalCharacteristics) {
+        return new Elements<>(row, 0, size, blockFor(size), ELEMENT_CHARACTERISTICS | additionalCharacteristics);
+    }
+
+    public static <T> Spliterator<T> of(List<T> list) {
+        if (!(list instanceof RandomAccess)) {
+            throw new IllegalArgumentException("List must support random access: " + list.getClass().getName());
+        }
+        return new Elements<>(list::get, 0, list.size(), blockFor(list.size()), ELEMENT_CHARACTERISTICS);
+    }
+
+    // Problems 74, 87, 89: replacement for list.stream() / list.parallelStream()
+    public static <T> Stream<T> stream(List<T> list, boolean parallel) {
+        return StreamSupport.stream(of(list), parallel);
+    }
+
+    public static IntStream intStream(int[] column, boolean parallel) {
+        return StreamSupport.intStream(ints(column), parallel);
+    }
+
+    public static DoubleStream doubleStream(double[] column, boolean parallel) {
+        return StreamSupport.doubleStream(doubles(column), parallel);
+    }
+
+    // Split granularity for a source of size rows: a power of two that
+    // divides BLOCK_ROWS, so boundaries still line up across columns
+    static int blockFor(int size) {
+        return Math.max(1, Math.min(BLOCK_ROWS, Integer.highestOneBit(size / MIN_SPLITS)));
+    }
+
+    // Block-aligned point near the middle of [from, to), or -1 if either half
+    // would be smaller than a block
+    static int splitPoint(int from, int to, int block) {
+        if (to - from < 2 * block) {
+            return -1;
+        }
+        int mid = (from + to) >>> 1;
+        return mid - mid % block;
+    }
+
+    private static final class Ints implements Spliterator.OfInt {
+        private final int[] column; // null: the row ids themselves
+        private int from;
+        private final int to;
+        private final int block;
+        private final int characteristics;
+
+        Ints(int[] column, int from, int to, int block, int characteristics) {
+            this.column = column;
+            this.from = from;
+            this.to = to;
+            this.block = block;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            int mid = splitPoint(from, to, block);
+            if (mid < 0) {
+                return null;
+            }
+            Ints prefix = new Ints(column, from, mid, block, characteristics);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(column == null ? from : column[from]);
+            from++;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int i = from;
+            int end = to;
+            from = end;
+            if (column == null) {
+                for (; i < end; i++) {
+                    action.accept(i);
+                }
+            } else {
+                int[] values = column;
+                for (; i < end; i++) {
+                    action.accept(values[i]);
+                }
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        // Row ids are in natural order
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            if ((characteristics & SORTED) == 0) {
+                throw new IllegalStateException();
+            }
+            return null;
+        }
+    }
+
+    private static final class Doubles implements Spliterator.OfDouble {
+        private final double[] column;
+        private int from;
+        private final int to;
+        private final int block;
+        private final int characteristics;
+
+        Doubles(double[] column, int from, int to, int block, int characteristics) {
+            this.column = column;
+            this.from = from;
+            this.to = to;
+            this.block = block;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public OfDouble trySplit() {
+            int mid = splitPoint(from, to, block);
+            if (mid < 0) {
+                return null;
+            }
+            Doubles prefix = new Doubles(column, from, mid, block, characteristics);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(column[from++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            double[] values = column;
+            int end = to;
+            int i = from;
+            from = end;
+            for (; i < end; i++) {
+                action.accept(values[i]);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+
+    private static final class Elements<T> implements Spliterator<T> {
+        private final IntFunction<T> row;
+        private int from;
+        private final int to;
+        private final int block;
+        private final int characteristics;
+
+        Elements(IntFunction<T> row, int from, int to, int block, int characteristics) {
+            this.row = row;
+            this.from = from;
+            this.to = to;
+            this.block = block;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = splitPoint(from, to, block);
+            if (mid < 0) {
+                return null;
+            }
+            Elements<T> prefix = new Elements<>(row, from, mid, block, characteristics);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(row.apply(from++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            int end = to;
+            int i = from;
+            from = end;
+            for (; i < end; i++) {
+                action.accept(row.apply(i));
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+}
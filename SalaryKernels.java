@@ -0,0 +1,180 @@
+import java.util.*;
+
+// Tight loops over primitive columns (PersonTable salaries, ages,
+// department codes). When the jdk.incubator.vector module is present
+// (run with --add-modules jdk.incubator.vector) they use VectorKernels,
+// which processes a full SIMD register of lanes per step; otherwise, or with
+// -Dkernels.scalar=true, the plain loops in Scalar.
+//
+// Vector sums add lanes in a different order than a sequential loop, so
+// results can differ in the last bits for fractional values. Whole-number
+// salaries and ages add up exactly either way (below 2^53).
+public class SalaryKernels {
+    public static final boolean VECTORIZED = vectorApiAvailable();
+
+    // The vector grouped kernels make one masked pass per group; past a few
+    // groups that costs more than the scalar scatter loop (measured on AVX-512)
+    static final int VECTOR_GROUP_LIMIT = 4;
+
+    private SalaryKernels() {
+    }
+
+    public static double sum(double[] values) {
+        return VECTORIZED ? VectorKernels.sum(values) : Scalar.sum(values);
+    }
+
+    // +Infinity when empty, like DoubleSummaryStatistics
+    public static double min(double[] values) {
+        return VECTORIZED ? VectorKernels.min(values) : Scalar.min(values);
+    }
+
+    // -Infinity when empty, like DoubleSummaryStatistics
+    public static double max(double[] values) {
+        return VECTORIZED ? VectorKernels.max(values) : Scalar.max(values);
+    }
+
+    public static long sum(int[] values) {
+        return VECTORIZED ? VectorKernels.sum(values) : Scalar.sum(values);
+    }
+
+    // Integer.MAX_VALUE when empty, like IntSummaryStatistics
+    public static int min(int[] values) {
+        return VECTORIZED ? VectorKernels.min(values) : Scalar.min(values);
+    }
+
+    // Integer.MIN_VALUE when empty, like IntSummaryStatistics
+    public static int max(int[] values) {
+        return VECTORIZED ? VectorKernels.max(values) : Scalar.max(values);
+    }
+
+    // Sum of values[i] where low <= keys[i] <= high (e.g. salary by age range)
+    public static double sumWhere(double[] values, int[] keys, int low, int high) {
+        checkSameLength(values.length, keys.length);
+        return VECTORIZED ? VectorKernels.sumWhere(values, keys, low, high) : Scalar.sumWhere(values, keys, low, high);
+    }
+
+    // Number of i where low <= keys[i] <= high
+    public static int countWhere(int[] keys, int low, int high) {
+        return VECTORIZED ? VectorKernels.countWhere(keys, low, high) : Scalar.countWhere(keys, low, high);
+    }
+
+    // totals[g] = sum of values[i] where groups[i] == g, for g in [0, groupCount)
+    public static double[] sumByGroup(double[] values, int[] groups, int groupCount) {
+        checkSameLength(values.length, groups.length);
+        return VECTORIZED && groupCount <= VECTOR_GROUP_LIMIT
+            ? VectorKernels.sumByGroup(values, groups, groupCount)
+            : Scalar.sumByGroup(values, groups, groupCount);
+    }
+
+    // Problem 92: summarizingDouble per group
+    public static DoubleSummaryStatistics[] statisticsByGroup(double[] values, int[] groups, int groupCount) {
+        checkSameLength(values.length, groups.length);
+        return VECTORIZED && groupCount <= VECTOR_GROUP_LIMIT
+            ? VectorKernels.statisticsByGroup(values, groups, groupCount)
+            : Scalar.statisticsByGroup(values, groups, groupCount);
+    }
+
+    private static void checkSameLength(int values, int keys) {
+        if (values != keys) {
+            throw new IllegalArgumentException("Columns differ in length: " + values + " and " + keys);
+        }
+    }
+
+    private static boolean vectorApiAvailable() {
+        return !Boolean.getBoolean("kernels.scalar")
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    // One element at a time; also the baseline in StreamBenchmarks
+    static final class Scalar {
+        private Scalar() {
+        }
+
+        static double sum(double[] values) {
+            double sum = 0;
+            for (double v : values) {
+                sum += v;
+            }
+            return sum;
+        }
+
+        static double min(double[] values) {
+            double min = Double.POSITIVE_INFINITY;
+            for (double v : values) {
+                min = Math.min(min, v);
+            }
+            return min;
+        }
+
+        static double max(double[] values) {
+            double max = Double.NEGATIVE_INFINITY;
+            for (double v : values) {
+                max = Math.max(max, v);
+            }
+            return max;
+        }
+
+        static long sum(int[] values) {
+            long sum = 0;
+            for (int v : values) {
+                sum += v;
+            }
+            return sum;
+        }
+
+        static int min(int[] values) {
+            int min = Integer.MAX_VALUE;
+            for (int v : values) {
+                min = Math.min(min, v);
+            }
+            return min;
+        }
+
+        static int max(int[] values) {
+            int max = Integer.MIN_VALUE;
+            for (int v : values) {
+                max = Math.max(max, v);
+            }
+            return max;
+        }
+
+        static double sumWhere(double[] values, int[] keys, int low, int high) {
+            double sum = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (keys[i] >= low && keys[i] <= high) {
+                    sum += values[i];
+                }
+            }
+            return sum;
+        }
+
+        static int countWhere(int[] keys, int low, int high) {
+            int count = 0;
+            for (int key : keys) {
+                if (key >= low && key <= high) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        static double[] sumByGroup(double[] values, int[] groups, int groupCount) {
+            double[] totals = new double[groupCount];
+            for (int i = 0; i < values.length; i++) {
+                totals[groups[i]] += values[i];
+            }
+            return totals;
+        }
+
+        static DoubleSummaryStatistics[] statisticsByGroup(double[] values, int[] groups, int groupCount) {
+            DoubleSummaryStatistics[] stats = new DoubleSummaryStatistics[groupCount];
+            for (int g = 0; g < groupCount; g++) {
+                stats[g] = new DoubleSummaryStatistics();
+            }
+            for (int i = 0; i < values.length; i++) {
+                stats[groups[i]].accept(values[i]);
+            }
+            return stats;
+        }
+    }
+}
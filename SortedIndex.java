@@ -0,0 +1,249 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+// Secondary index: row ids sorted by a key column, plus prefix sums of a
+// value column in that same order.
+//   range lookup          O(log n) to find the bounds, O(k) to visit rows
+//   count / sum / average O(log n), no rows touched
+//   nearest key           O(log n)
+// Rows with equal keys stay in row order, so results can be reproduced in
+// the original encounter order.
+//
+// Prefix sums are plain doubles: exact for whole-number values (salaries,
+// ages) up to 2^53, otherwise subject to the usual rounding.
+public class SortedIndex {
+    private final double[] keys;
+    private final int[] rows;
+    private final double[] prefix;
+
+    // values[row] is what sum()/average() aggregate; it may be the key column itself
+    public SortedIndex(double[] keys, double[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Key and value columns differ in length");
+        }
+        int n = keys.length;
+        this.rows = sortedRows(keys);
+        this.keys = new double[n];
+        this.prefix = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            this.keys[i] = keys[rows[i]];
+            this.prefix[i + 1] = prefix[i] + values[rows[i]];
+        }
+    }
+
+    public SortedIndex(int[] keys, double[] values) {
+        this(Percentiles.toDoubles(keys), values);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public double keyAt(int position) {
+        return keys[position];
+    }
+
+    public int rowAt(int position) {
+        return rows[position];
+    }
+
+    // Keys in sorted order (a copy), e.g. for PrefixSums
+    public double[] keys() {
+        return keys.clone();
+    }
+
+    public Range all() {
+        return new Range(0, keys.length);
+    }
+
+    public Range greaterThan(double key) {
+        return new Range(upperBound(key), keys.length);
+    }
+
+    public Range atLeast(double key) {
+        return new Range(lowerBound(key), keys.length);
+    }
+
+    public Range lessThan(double key) {
+        return new Range(0, lowerBound(key));
+    }
+
+    public Range atMost(double key) {
+        return new Range(0, upperBound(key));
+    }
+
+    // Both ends inclusive, like filter(v -> v >= low && v <= high)
+    public Range between(double low, double high) {
+        return range(low, true, high, true);
+    }
+
+    public Range range(double low, boolean lowInclusive, double high, boolean highInclusive) {
+        int from = lowInclusive ? lowerBound(low) : upperBound(low);
+        int to = highInclusive ? upperBound(high) : lowerBound(high);
+        return new Range(from, Math.max(from, to));
+    }
+
+    // Row whose key is closest to target; on a tie the lowest row id wins,
+    // like stream().min(comparingDouble(p -> Math.abs(key - target))).
+    // Returns -1 for an empty index.
+    public int nearestRow(double target) {
+        if (keys.length == 0) {
+            return -1;
+        }
+        int above = lowerBound(target);
+        if (above == keys.length) {
+            return rows[lowerBound(keys[keys.length - 1])];
+        }
+        if (above == 0) {
+            return rows[0];
+        }
+        // First position of the run of keys just below target
+        int below = lowerBound(keys[above - 1]);
+        double distanceBelow = Math.abs(keys[below] - target);
+        double distanceAbove = Math.abs(keys[above] - target);
+        if (distanceBelow != distanceAbove) {
+            return distanceBelow < distanceAbove ? rows[below] : rows[above];
+        }
+        return Math.min(rows[below], rows[above]);
+    }
+
+    // First position with key >= key
+    public int lowerBound(double key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(keys[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First position with key > key
+    public int upperBound(double key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(keys[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public class Range {
+        private final int from;
+        private final int to;
+
+        Range(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public int count() {
+            return to - from;
+        }
+
+        public boolean isEmpty() {
+            return to == from;
+        }
+
+        public double sum() {
+            return prefix[to] - prefix[from];
+        }
+
+        // 0.0 when empty, like average().orElse(0.0)
+        public double average() {
+            return isEmpty() ? 0.0 : sum() / count();
+        }
+
+        public double minKey() {
+            checkNotEmpty();
+            return keys[from];
+        }
+
+        public double maxKey() {
+            checkNotEmpty();
+            return keys[to - 1];
+        }
+
+        // Row ids in key order
+        public int[] rows() {
+            return Arrays.copyOfRange(rows, from, to);
+        }
+
+        // Row ids in row (encounter) order
+        public int[] rowsInOrder() {
+            int[] result = rows();
+            Arrays.sort(result);
+            return result;
+        }
+
+        // For combining with BitmapIndex predicates
+        public RoaringBitmap toBitmap() {
+            return RoaringBitmap.of(rowsInOrder());
+        }
+
+        public void forEachRow(IntConsumer action) {
+            for (int i = from; i < to; i++) {
+                action.accept(rows[i]);
+            }
+        }
+
+        private void checkNotEmpty() {
+            if (isEmpty()) {
+                throw new NoSuchElementException("Range is empty");
+            }
+        }
+    }
+
+    // Stable LSD radix sort of row ids on the order-preserving bit pattern of
+    // each key; 16-bit digits that are the same for every row are skipped
+    private static int[] sortedRows(double[] keys) {
+        int n = keys.length;
+        long[] bits = new long[n];
+        long or = 0;
+        long and = -1L;
+        for (int i = 0; i < n; i++) {
+            long b = Double.doubleToLongBits(keys[i]);
+            bits[i] = b ^ ((b >> 63) | Long.MIN_VALUE);
+            or |= bits[i];
+            and &= bits[i];
+        }
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = i;
+        }
+        int[] scratch = new int[n];
+        int[] counts = new int[1 << 16];
+        for (int shift = 0; shift < 64; shift += 16) {
+            if ((((or ^ and) >>> shift) & 0xFFFF) == 0) {
+                continue;
+            }
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(int) ((bits[rows[i]] >>> shift) & 0xFFFF)]++;
+            }
+            int sum = 0;
+            for (int d = 0; d < counts.length; d++) {
+                int c = counts[d];
+                counts[d] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int row = rows[i];
+                scratch[counts[(int) ((bits[row] >>> shift) & 0xFFFF)]++] = row;
+            }
+            int[] swap = rows;
+            rows = scratch;
+            scratch = swap;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,356 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Benchmark suite for the problem families we depend on: filter, range,
+// multiFilter, kernels, parallel, output, payroll, duplicates, distinct,
+// mostCommon, groupingBy, sorting/top-N, median, the Problem 78 summary and
+// the Problem 98 business report. The kernels and payroll families only run
+// their Vector API paths when started with --add-modules jdk.incubator.vector
+// (see SalaryKernels).
+// Each family runs over every (size, departments) combination.
+//
+// Usage: java StreamBenchmarks [sizes=10,1000,100000,10000000] [departments=4,64]
+//                              [only=groupingBy,median] [warmup=5] [iterations=5]
+//                              [millis=500] [csv=results.csv]
+public class StreamBenchmarks {
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        int[] sizes = parseInts(options.getOrDefault("sizes", "10,1000,100000,10000000"));
+        int[] departmentCounts = parseInts(options.getOrDefault("departments", "4,64"));
+        Set<String> only = options.containsKey("only")
+            ? new HashSet<>(Arrays.asList(options.get("only").split(",")))
+            : null;
+        BenchmarkRunner runner = new BenchmarkRunner(
+            Integer.parseInt(options.getOrDefault("warmup", "5")),
+            Integer.parseInt(options.getOrDefault("iterations", "5")),
+            Long.parseLong(options.getOrDefault("millis", "500")));
+        String csv = options.get("csv");
+
+        System.out.println("===== STREAM BENCHMARKS =====");
+        List<String> csvLines = new ArrayList<>();
+        for (int size : sizes) {
+            for (int departments : departmentCounts) {
+                System.out.println("\nsize=" + size + " departments=" + departments);
+                List<Person> persons = BenchmarkData.generate(size, departments, 42);
+                PersonTable table = PersonTable.fromPersons(persons);
+                for (Map.Entry<String, Supplier<Map<String, Supplier<?>>>> family : families(persons, table).entrySet()) {
+                    if (only != null && !only.contains(family.getKey())) {
+                        continue;
+                    }
+                    for (Map.Entry<String, Supplier<?>> bench : family.getValue().get().entrySet()) {
+                        BenchmarkRunner.Result result = runner.run(bench.getKey(), bench.getValue());
+                        System.out.println("  " + result);
+                        csvLines.add(result.getName() + "," + size + "," + departments + ","
+                            + result.getMeanNanos() + "," + result.getErrorNanos());
+                    }
+                }
+            }
+        }
+
+        if (csv != null) {
+            try (PrintWriter out = new PrintWriter(new FileWriter(csv))) {
+                out.println("benchmark,size,departments,meanNanos,errorNanos");
+                csvLines.forEach(out::println);
+            }
+            System.out.println("\nResults written to " + csv);
+        }
+    }
+
+    // Family name -> setup that builds the family's fixtures (indexes,
+    // copies, output buffers) and returns its benchmarks, named
+    // "family/variant". Only the families selected with only= are set up,
+    // each right before it runs, so nothing is built for an unselected
+    // family, and what a family allocates itself can be collected once it is
+    // done (indexes stay cached on the table). Insertion order is run order.
+    static Map<String, Supplier<Map<String, Supplier<?>>>> families(List<Person> persons, PersonTable table) {
+        Map<String, Supplier<Map<String, Supplier<?>>>> families = new LinkedHashMap<>();
+
+        // Problem 1
+        families.put("filter", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("filter/stream", () -> persons.stream()
+                .filter(p -> "Dept0".equals(p.getDepartment()))
+                .collect(Collectors.toList()));
+            return benchmarks;
+        });
+
+        // Problems 20 and 34; the indexes are built in the setup, outside the timing
+        families.put("range", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            SortedIndex salaryIndex = table.salaryIndex();
+            SortedIndex ageIndex = table.ageIndex();
+            benchmarks.put("range/streamFilter", () -> persons.stream()
+                .filter(p -> p.getSalary() >= 50000 && p.getSalary() <= 70000)
+                .collect(Collectors.toList()));
+            benchmarks.put("range/index", () -> salaryIndex.between(50000, 70000).rows());
+            benchmarks.put("range/streamAverage", () -> persons.stream()
+                .filter(p -> p.getAge() > 30)
+                .mapToDouble(Person::getSalary)
+                .average()
+                .orElse(0.0));
+            benchmarks.put("range/indexAverage", () -> ageIndex.greaterThan(30).average());
+            return benchmarks;
+        });
+
+        // Problems 61 and 66; bitmap indexes are built in the setup like the
+        // sorted ones, but every predicate's bitmap (salaryAbove ORs the salary
+        // brackets) is computed inside the timing, like the stream's filters
+        families.put("multiFilter", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            BitmapIndex<String> departmentBitmaps = table.departmentBitmaps();
+            BitmapIndex<Integer> ageGroupBitmaps = table.ageGroupBitmaps();
+            table.salaryBracketBitmaps();
+            benchmarks.put("multiFilter/stream", () -> persons.stream()
+                .filter(p -> "Dept0".equals(p.getDepartment()))
+                .filter(p -> p.getAge() >= 30)
+                .filter(p -> p.getSalary() > 60000)
+                .count());
+            benchmarks.put("multiFilter/bitmap", () -> departmentBitmaps.get("Dept0")
+                .and(ageGroupBitmaps.matching(decade -> decade >= 30))
+                .andCardinality(table.salaryAbove(60000)));
+            benchmarks.put("multiFilter/bitmapPerDepartment", () -> departmentBitmaps.countWithin(table.salaryAbove(60000)));
+            return benchmarks;
+        });
+
+        // Problems 22, 73, 7 and 6 over primitive columns: stream vs scalar loop vs SalaryKernels
+        families.put("kernels", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            double[] salaries = table.salaries();
+            int[] ages = table.ages();
+            int[] departmentCodes = table.departmentCodes();
+            int departmentCount = table.departmentCount();
+            benchmarks.put("kernels/streamSum", () -> persons.stream().mapToDouble(Person::getSalary).sum());
+            benchmarks.put("kernels/scalarSum", () -> SalaryKernels.Scalar.sum(salaries));
+            benchmarks.put("kernels/sum", () -> SalaryKernels.sum(salaries));
+            benchmarks.put("kernels/streamMax", () -> persons.stream().mapToDouble(Person::getSalary).max());
+            benchmarks.put("kernels/scalarMax", () -> SalaryKernels.Scalar.max(salaries));
+            benchmarks.put("kernels/max", () -> SalaryKernels.max(salaries));
+            benchmarks.put("kernels/streamSumWhere", () -> persons.stream()
+                .filter(p -> p.getAge() >= 30 && p.getAge() <= 45)
+                .mapToDouble(Person::getSalary)
+                .sum());
+            benchmarks.put("kernels/scalarSumWhere", () -> SalaryKernels.Scalar.sumWhere(salaries, ages, 30, 45));
+            benchmarks.put("kernels/sumWhere", () -> SalaryKernels.sumWhere(salaries, ages, 30, 45));
+            benchmarks.put("kernels/scalarSumByGroup", () ->
+                SalaryKernels.Scalar.sumByGroup(salaries, departmentCodes, departmentCount));
+            benchmarks.put("kernels/sumByGroup", () ->
+                SalaryKernels.sumByGroup(salaries, departmentCodes, departmentCount));
+            return benchmarks;
+        });
+
+        // Problems 68, 89, 99: the list's spliterator vs block-aligned column splits
+        families.put("parallel", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("parallel/listSum", () -> persons.parallelStream().mapToDouble(Person::getSalary).sum());
+            benchmarks.put("parallel/columnSum", () -> table.salaryStream().parallel().sum());
+            benchmarks.put("parallel/listReduce", () -> persons.parallelStream()
+                .reduce(0, (sum, p) -> sum + p.getName().length(), Integer::sum));
+            benchmarks.put("parallel/rowsReduce", () -> RowSpliterators.stream(persons, true)
+                .reduce(0, (sum, p) -> sum + p.getName().length(), Integer::sum));
+            benchmarks.put("parallel/listToArray", () -> persons.parallelStream()
+                .filter(p -> p.getAge() > 30).mapToDouble(Person::getSalary).toArray());
+            benchmarks.put("parallel/columnToArray", () -> table.rows().parallel()
+                .filter(row -> table.getAge(row) > 30).mapToDouble(table::getSalary).toArray());
+            return benchmarks;
+        });
+
+        // Problems 46 and 59: one formatted line per row, written to a discarding
+        // target so only formatting and buffering are measured
+        families.put("output", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            PrintStream printStream = new PrintStream(OutputStream.nullOutputStream(), true);
+            WritableByteChannel discard = Channels.newChannel(OutputStream.nullOutputStream());
+            benchmarks.put("output/println", () -> {
+                for (Person p : persons) {
+                    double bonus = p.getSalary() * 0.05;
+                    printStream.println("  " + p.getName() + ": Salary=" + p.getSalary() +
+                        ", Bonus=" + String.format("%.2f", bonus) +
+                        ", Total=" + String.format("%.2f", p.getSalary() + bonus));
+                }
+                return printStream;
+            });
+            benchmarks.put("output/sink", () -> {
+                try (ReportSink out = ReportSink.to(discard, StandardCharsets.UTF_8)) {
+                    for (Person p : persons) {
+                        double bonus = p.getSalary() * 0.05;
+                        out.append("  ").append(p.getName()).append(": Salary=").append(p.getSalary())
+                            .append(", Bonus=").appendFixed(bonus, 2)
+                            .append(", Total=").appendFixed(p.getSalary() + bonus, 2).newline();
+                    }
+                    return out;
+                }
+            });
+            return benchmarks;
+        });
+
+        // Problems 30, 46 and 59 together: per-row doubles vs one PayrollEngine pass
+        families.put("payroll", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            double[] salaries = table.salaries();
+            long[] salaryCents = PayrollEngine.toCents(salaries);
+            PayrollEngine payroll = PayrollEngine.builder().incrementBps(1000).bonusBps(500)
+                .tax(PayrollEngine.TaxTable.flat(new long[] {60000_00}, new int[] {1000, 2000}))
+                .build();
+            // Output buffers reused by both, so allocation is not measured
+            double[] grossDoubles = new double[salaries.length];
+            double[] taxDoubles = new double[salaries.length];
+            double[] netDoubles = new double[salaries.length];
+            long[] grossCents = new long[salaries.length];
+            long[] taxCents = new long[salaries.length];
+            long[] netCents = new long[salaries.length];
+            benchmarks.put("payroll/doubles", () -> {
+                for (int i = 0; i < salaries.length; i++) {
+                    double gross = salaries[i] * 1.10 * 1.05;
+                    double tax = gross * (gross > 60000 ? 0.20 : 0.10);
+                    grossDoubles[i] = gross;
+                    taxDoubles[i] = tax;
+                    netDoubles[i] = gross - tax;
+                }
+                return netDoubles;
+            });
+            benchmarks.put("payroll/engine", () -> {
+                payroll.run(salaryCents, 0, salaryCents.length, grossCents, taxCents, netCents);
+                return netCents;
+            });
+            return benchmarks;
+        });
+
+        // Problem 41
+        families.put("duplicates", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("duplicates/hashSet", () -> {
+                Set<String> uniqueNames = new HashSet<>();
+                return persons.stream()
+                    .map(Person::getName)
+                    .filter(name -> !uniqueNames.add(name))
+                    .collect(Collectors.toSet());
+            });
+            benchmarks.put("duplicates/bloomParallel", () -> DuplicateDetector.findDuplicates(
+                () -> persons.parallelStream().map(Person::getName), persons.size(), 0.01));
+            return benchmarks;
+        });
+
+        // Problems 39 and 55
+        families.put("distinct", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("distinct/hashSet", () -> persons.stream()
+                .map(Person::getName)
+                .distinct()
+                .count());
+            benchmarks.put("distinct/hyperLogLog", () -> persons.parallelStream()
+                .collect(HyperLogLog.countingDistinct(Person::getName)));
+            return benchmarks;
+        });
+
+        // Problem 44
+        families.put("mostCommon", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("mostCommon/groupingBy", () -> persons.stream()
+                .collect(Collectors.groupingBy(Person::getName, Collectors.counting()))
+                .entrySet().stream()
+                .max(Map.Entry.comparingByValue()));
+            benchmarks.put("mostCommon/heavyHitters", () -> persons.stream()
+                .collect(HeavyHitters.collector(Person::getName, 64))
+                .mostFrequent());
+            return benchmarks;
+        });
+
+        // Problem 6
+        families.put("groupingBy", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("groupingBy/stream", () -> persons.stream()
+                .collect(Collectors.groupingBy(
+                    Person::getDepartment,
+                    Collectors.summingDouble(Person::getSalary))));
+            benchmarks.put("groupingBy/table", table::totalSalaryByDepartment);
+            // One salary change then a read of the maintained totals; like the
+            // indexes, the aggregates are built in the setup, outside the timing
+            List<Employee> employees = new ArrayList<>(persons.size());
+            persons.forEach(p -> employees.add(new Employee(p.getName(), p.getAge(), p.getSalary(), p.getDepartment())));
+            DepartmentAggregates aggregates = DepartmentAggregates.of(employees);
+            Random changes = new Random(7);
+            benchmarks.put("groupingBy/aggregates", () -> {
+                if (!employees.isEmpty()) {
+                    aggregates.setSalary(employees.get(changes.nextInt(employees.size())), 30000 + changes.nextInt(100_000));
+                }
+                return aggregates.totalSalaries();
+            });
+            return benchmarks;
+        });
+
+        // Problem 33
+        families.put("topN", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("topN/sortedLimit", () -> persons.stream()
+                .sorted(Comparator.comparingDouble(Person::getSalary).reversed())
+                .limit(3)
+                .collect(Collectors.toList()));
+            benchmarks.put("topN/heap", () -> persons.stream()
+                .collect(TopK.largest(3, Person::getSalary)));
+            benchmarks.put("topN/heapPerDepartment", () -> persons.stream()
+                .collect(TopK.largestPerGroup(Person::getDepartment, 3, Person::getSalary)));
+            return benchmarks;
+        });
+
+        // Problem 60
+        families.put("median", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("median/sortedBoxed", () -> {
+                List<Double> sortedSalaries = persons.stream()
+                    .map(Person::getSalary)
+                    .sorted()
+                    .collect(Collectors.toList());
+                int size = sortedSalaries.size();
+                return size % 2 == 0
+                    ? (sortedSalaries.get(size / 2 - 1) + sortedSalaries.get(size / 2)) / 2
+                    : sortedSalaries.get(size / 2);
+            });
+            benchmarks.put("median/select", () -> Percentiles.median(table.salaries()));
+            benchmarks.put("median/selectParallel", () -> Percentiles.quantile(table.salaries(), 0.5, true));
+            benchmarks.put("median/sketch", () -> persons.stream()
+                .collect(QuantileSketch.collector(Person::getSalary))
+                .quantile(0.5));
+            return benchmarks;
+        });
+
+        // Problem 78
+        families.put("summary", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("summary/concurrent", () -> persons.parallelStream()
+                .collect(EmployeeSummary.collector()));
+            return benchmarks;
+        });
+
+        // Problem 98
+        families.put("report", () -> {
+            Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+            benchmarks.put("report/multiPass", () -> BusinessReport.multiPass(persons));
+            benchmarks.put("report/singlePass", () -> BusinessReport.singlePass(persons));
+            return benchmarks;
+        });
+
+        return families;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static int[] parseInts(String csv) {
+        return Arrays.stream(csv.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+}
@@ -0,0 +1,161 @@
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+// Bounded heap keeping the k best elements by a double key.
+// Replaces sorted(...).limit(k): O(n log k) time, O(k) memory.
+// Keys live in a primitive array next to the elements; the root is the
+// current worst entry, so most rows are rejected with a single compare.
+//
+// Ties keep encounter order, exactly like a stable sort followed by limit,
+// including after parallel splits are merged.
+public class TopK<T> {
+    private final int k;
+    private final boolean largest;
+    private final double[] keys;
+    private final long[] seqs;
+    private final Object[] values;
+    private int size;
+    private long seen;
+
+    public TopK(int k, boolean largest) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        this.k = k;
+        this.largest = largest;
+        this.keys = new double[k];
+        this.seqs = new long[k];
+        this.values = new Object[k];
+    }
+
+    // Top k by descending key, like sorted(comparingDouble(key).reversed()).limit(k)
+    public static <T> Collector<T, ?, List<T>> largest(int k, ToDoubleFunction<? super T> key) {
+        return collector(k, true, key);
+    }
+
+    // Bottom k by ascending key, like sorted(comparingDouble(key)).limit(k)
+    public static <T> Collector<T, ?, List<T>> smallest(int k, ToDoubleFunction<? super T> key) {
+        return collector(k, false, key);
+    }
+
+    // Top k per group, e.g. the three best paid employees of every department
+    public static <T, K> Collector<T, ?, Map<K, List<T>>> largestPerGroup(
+            Function<? super T, ? extends K> classifier, int k, ToDoubleFunction<? super T> key) {
+        return Collectors.groupingBy(classifier, largest(k, key));
+    }
+
+    private static <T> Collector<T, TopK<T>, List<T>> collector(int k, boolean largest, ToDoubleFunction<? super T> key) {
+        return Collector.of(
+            () -> new TopK<>(k, largest),
+            (top, t) -> top.offer(key.applyAsDouble(t), t),
+            TopK::merge,
+            TopK::toList);
+    }
+
+    public void offer(double key, T value) {
+        add(key, seen++, value);
+    }
+
+    // Other must hold elements that come after this one's in encounter order
+    public TopK<T> merge(TopK<T> other) {
+        for (int i = 0; i < other.size; i++) {
+            @SuppressWarnings("unchecked")
+            T value = (T) other.values[i];
+            add(other.keys[i], seen + other.seqs[i], value);
+        }
+        seen += other.seen;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Best first
+    public List<T> toList() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(b, a));
+        List<T> result = new ArrayList<>(size);
+        for (int i : order) {
+            @SuppressWarnings("unchecked")
+            T value = (T) values[i];
+            result.add(value);
+        }
+        return result;
+    }
+
+    private void add(double key, long seq, T value) {
+        if (size < k) {
+            keys[size] = key;
+            seqs[size] = seq;
+            values[size] = value;
+            siftUp(size++);
+        } else if (k > 0 && better(key, seq, keys[0], seqs[0])) {
+            keys[0] = key;
+            seqs[0] = seq;
+            values[0] = value;
+            siftDown(0);
+        }
+    }
+
+    // > 0 when entry a ranks ahead of entry b
+    private int compare(int a, int b) {
+        if (a == b) {
+            return 0;
+        }
+        return better(keys[a], seqs[a], keys[b], seqs[b]) ? 1 : -1;
+    }
+
+    private boolean better(double keyA, long seqA, double keyB, long seqB) {
+        int c = largest ? Double.compare(keyA, keyB) : Double.compare(keyB, keyA);
+        return c != 0 ? c > 0 : seqA < seqB;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compare(i, parent) > 0) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && compare(right, left) < 0) {
+                worst = right;
+            }
+            if (compare(worst, i) > 0) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long seq = seqs[a];
+        seqs[a] = seqs[b];
+        seqs[b] = seq;
+        Object value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
@@ -0,0 +1,277 @@
+import java.util.*;
+import jdk.incubator.vector.*;
+
+// Vector API implementations behind SalaryKernels. Only loaded when
+// jdk.incubator.vector is present; call through SalaryKernels instead.
+//
+// Each loop handles one register of lanes per step (8 doubles with AVX-512,
+// 4 with AVX2, 2 with NEON), then finishes the tail with scalar code. Int
+// keys use a species with as many lanes as the double one, so a mask
+// computed on keys can select salary lanes directly.
+final class VectorKernels {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS_PER_DOUBLE =
+        VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.length() * Integer.SIZE));
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS_PER_LONG =
+        VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.length() * Integer.SIZE));
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    static double sum(double[] values) {
+        int n = values.length;
+        int step = DOUBLES.length();
+        // Two accumulators so consecutive adds do not wait on each other
+        DoubleVector acc0 = DoubleVector.zero(DOUBLES);
+        DoubleVector acc1 = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (; i + 2 * step <= n; i += 2 * step) {
+            acc0 = acc0.add(DoubleVector.fromArray(DOUBLES, values, i));
+            acc1 = acc1.add(DoubleVector.fromArray(DOUBLES, values, i + step));
+        }
+        for (; i + step <= n; i += step) {
+            acc0 = acc0.add(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    static double min(double[] values) {
+        int n = values.length;
+        int bound = DOUBLES.loopBound(n);
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            acc = acc.min(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < n; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    static double max(double[] values) {
+        int n = values.length;
+        int bound = DOUBLES.loopBound(n);
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            acc = acc.max(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < n; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    // Ints are widened to long lanes so large columns cannot overflow
+    static long sum(int[] values) {
+        int n = values.length;
+        int bound = INTS_PER_LONG.loopBound(n);
+        LongVector acc = LongVector.zero(LONGS);
+        int i = 0;
+        for (; i < bound; i += INTS_PER_LONG.length()) {
+            acc = acc.add(IntVector.fromArray(INTS_PER_LONG, values, i)
+                .convertShape(VectorOperators.I2L, LONGS, 0));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    static int min(int[] values) {
+        int n = values.length;
+        int bound = INTS.loopBound(n);
+        IntVector acc = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        int i = 0;
+        for (; i < bound; i += INTS.length()) {
+            acc = acc.min(IntVector.fromArray(INTS, values, i));
+        }
+        int min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < n; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    static int max(int[] values) {
+        int n = values.length;
+        int bound = INTS.loopBound(n);
+        IntVector acc = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        int i = 0;
+        for (; i < bound; i += INTS.length()) {
+            acc = acc.max(IntVector.fromArray(INTS, values, i));
+        }
+        int max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < n; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    static double sumWhere(double[] values, int[] keys, int low, int high) {
+        int n = values.length;
+        int bound = DOUBLES.loopBound(n);
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            IntVector k = IntVector.fromArray(INTS_PER_DOUBLE, keys, i);
+            VectorMask<Double> inRange = k.compare(VectorOperators.GE, low)
+                .and(k.compare(VectorOperators.LE, high))
+                .cast(DOUBLES);
+            acc = acc.add(DoubleVector.fromArray(DOUBLES, values, i), inRange);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            if (keys[i] >= low && keys[i] <= high) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    static int countWhere(int[] keys, int low, int high) {
+        int n = keys.length;
+        int bound = INTS.loopBound(n);
+        int count = 0;
+        int i = 0;
+        for (; i < bound; i += INTS.length()) {
+            IntVector k = IntVector.fromArray(INTS, keys, i);
+            count += k.compare(VectorOperators.GE, low)
+                .and(k.compare(VectorOperators.LE, high))
+                .trueCount();
+        }
+        for (; i < n; i++) {
+            if (keys[i] >= low && keys[i] <= high) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Rows per block for the grouped kernels: a block of values and codes
+    // stays in L1 while it is scanned once per group
+    private static final int BLOCK = 2048;
+
+    // One masked pass per group over each block. Accumulators are locals so
+    // they stay in registers; an array of vectors would be boxed on every step
+    static double[] sumByGroup(double[] values, int[] groups, int groupCount) {
+        int n = values.length;
+        int bound = DOUBLES.loopBound(n);
+        double[] totals = new double[groupCount];
+        for (int start = 0; start < bound; start += BLOCK) {
+            int end = Math.min(bound, start + BLOCK);
+            for (int group = 0; group < groupCount; group++) {
+                DoubleVector acc = DoubleVector.zero(DOUBLES);
+                for (int i = start; i < end; i += DOUBLES.length()) {
+                    VectorMask<Double> in = IntVector.fromArray(INTS_PER_DOUBLE, groups, i)
+                        .compare(VectorOperators.EQ, group)
+                        .cast(DOUBLES);
+                    acc = acc.add(DoubleVector.fromArray(DOUBLES, values, i), in);
+                }
+                totals[group] += acc.reduceLanes(VectorOperators.ADD);
+            }
+        }
+        for (int i = bound; i < n; i++) {
+            totals[groups[i]] += values[i];
+        }
+        return totals;
+    }
+
+    static DoubleSummaryStatistics[] statisticsByGroup(double[] values, int[] groups, int groupCount) {
+        int n = values.length;
+        int bound = DOUBLES.loopBound(n);
+        long[] count = new long[groupCount];
+        double[] sum = new double[groupCount];
+        double[] min = new double[groupCount];
+        double[] max = new double[groupCount];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        for (int start = 0; start < bound; start += BLOCK) {
+            int end = Math.min(bound, start + BLOCK);
+            for (int group = 0; group < groupCount; group++) {
+                int groupCountInBlock = 0;
+                DoubleVector sums = DoubleVector.zero(DOUBLES);
+                DoubleVector mins = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+                DoubleVector maxes = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+                for (int i = start; i < end; i += DOUBLES.length()) {
+                    VectorMask<Double> in = IntVector.fromArray(INTS_PER_DOUBLE, groups, i)
+                        .compare(VectorOperators.EQ, group)
+                        .cast(DOUBLES);
+                    DoubleVector v = DoubleVector.fromArray(DOUBLES, values, i);
+                    groupCountInBlock += in.trueCount();
+                    sums = sums.add(v, in);
+                    mins = mins.lanewise(VectorOperators.MIN, v, in);
+                    maxes = maxes.lanewise(VectorOperators.MAX, v, in);
+                }
+                count[group] += groupCountInBlock;
+                sum[group] += sums.reduceLanes(VectorOperators.ADD);
+                min[group] = Math.min(min[group], mins.reduceLanes(VectorOperators.MIN));
+                max[group] = Math.max(max[group], maxes.reduceLanes(VectorOperators.MAX));
+            }
+        }
+        for (int i = bound; i < n; i++) {
+            int group = groups[i];
+            count[group]++;
+            sum[group] += values[i];
+            min[group] = Math.min(min[group], values[i]);
+            max[group] = Math.max(max[group], values[i]);
+        }
+        DoubleSummaryStatistics[] stats = new DoubleSummaryStatistics[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            stats[group] = count[group] == 0
+                ? new DoubleSummaryStatistics()
+                : new DoubleSummaryStatistics(count[group], min[group], max[group], sum[group]);
+        }
+        return stats;
+    }
+
+    // PayrollEngine.run over whole registers of rows from `from`; returns the
+    // first row left for the scalar loop. Rounding goes through double: the
+    // products are below 2^53 and the quotients below 2^39, so the
+    // truncated double quotient equals the exact integer one
+    static int payroll(long[] salary, int from, int to, long increment, long bonus,
+                       long[] thresholds, long[] rates, long[] baseTax, boolean progressive,
+                       long[] gross, long[] tax, long[] net) {
+        int step = LONGS.length();
+        int i = from;
+        for (; i + step <= to; i += step) {
+            LongVector s = LongVector.fromArray(LONGS, salary, i);
+            LongVector base = s.add(roundBps(s.mul(increment)));
+            LongVector g = base.add(roundBps(base.mul(bonus)));
+
+            LongVector rate = LongVector.broadcast(LONGS, rates[0]);
+            LongVector lower = LongVector.zero(LONGS);
+            LongVector before = LongVector.zero(LONGS);
+            for (int b = 0; b < thresholds.length; b++) {
+                VectorMask<Long> above = g.compare(VectorOperators.GT, thresholds[b]);
+                rate = rate.blend(rates[b + 1], above);
+                lower = lower.blend(thresholds[b], above);
+                before = before.blend(baseTax[b + 1], above);
+            }
+            LongVector t = progressive
+                ? roundBps(before.add(g.sub(lower).mul(rate)))
+                : roundBps(g.mul(rate));
+
+            g.intoArray(gross, i);
+            t.intoArray(tax, i);
+            g.sub(t).intoArray(net, i);
+        }
+        return i;
+    }
+
+    private static LongVector roundBps(LongVector x) {
+        DoubleVector quotient = ((DoubleVector) x.add(PayrollEngine.BPS / 2).convert(VectorOperators.L2D, 0))
+            .div(PayrollEngine.BPS);
+        return (LongVector) quotient.convert(VectorOperators.D2L, 0);
+    }
+}